@@ -0,0 +1,398 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32C;
+
+/**
+ * This class autosaves a game by only writing the cells that changed since the last checkpoint.
+ * The changes are appended to a journal file, one batch per checkpoint, and the journal is synced
+ * to the disk once per batch rather than once per cell. When the journal grows past a threshold,
+ * a full snapshot of the game is written in the background and the journal starts again from it.
+ *
+ * Snapshots and journals are numbered by generation: snapshot N holds everything written to the journals
+ * before N, so a game is rebuilt from the newest snapshot followed by the journals of that generation or later.
+ * A snapshot is written to a temporary file and renamed into place, and a batch carries its own checksum,
+ * so a crash at any point loses at most the last batch.
+ * Only one journal at a time can write the files of a name: it holds a lock on the file baseName.lock
+ * until it is closed. The lock file itself is left in the folder.
+ *
+ * A batch is: int count, int lives, count times (int index, byte player code), int CRC32C of everything before it.
+ * The game is only read on the thread that calls checkpoint, the files are only written by the background thread.
+ *
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class AutosaveJournal implements AutoCloseable {
+    private static final String SNAPSHOT = ".snap"; // Ending of the snapshot files
+    private static final String JOURNAL = ".journal"; // Ending of the journal files
+    private static final String LOCK = ".lock"; // Ending of the lock file
+    private static final int CELL_BYTES = 5; // An index and a code
+
+    private final Minesweeper game;
+    private final Path directory; // Where the files go
+    private final String baseName; // Start of the name of every file
+    private final long compactBytes; // Journal size after which a snapshot is taken
+    private final FileChannel lockFile; // Open while the journal writes the files, closing it releases the lock
+    private final ExecutorService writer; // Writes every file, one task at a time and in order
+    private final BoardListener listener = this::cellsChanged;
+    private PackedBoard board; // The board being followed, a new board means a new snapshot
+    private long[] dirty; // One bit per cell changed since the last checkpoint
+    private int dirtyCount; // The number of bits set in dirty
+    private int savedLives; // Lives written by the last checkpoint
+    private long generation; // Generation of the journal being appended to
+    private long journalBytes; // Bytes given to the current journal so far
+    private volatile IOException failure; // The first error of the background thread
+
+    /**
+     * Starts autosaving a game. A first snapshot is written in the background, so the files
+     * of an earlier autosave of the same name are replaced by this game.
+     * @param game the game to follow, only used on the thread that calls checkpoint
+     * @param directory the folder of the files
+     * @param baseName the start of the name of every file
+     * @param compactBytes the journal size after which a snapshot is taken
+     * @throws IOException if the folder cannot be read, or another journal is writing the files of this name
+     */
+    public AutosaveJournal(Minesweeper game, Path directory, String baseName, long compactBytes) throws IOException {
+        this.game = game;
+        this.directory = directory;
+        this.baseName = baseName;
+        this.compactBytes = compactBytes;
+        this.lockFile = lock(directory, baseName);
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "autosave-" + baseName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            this.generation = newestGeneration(directory, baseName, SNAPSHOT, JOURNAL);
+        } catch (IOException e) {
+            lockFile.close();
+            throw e;
+        }
+        game.addBoardListener(listener);
+        snapshot();
+    }
+
+    /**
+     * Writes the cells changed since the last checkpoint. It must be called on the thread that plays the game.
+     * Only the changes are gathered here, the file is written and synced in the background.
+     * @throws IOException if an earlier write in the background failed
+     */
+    public void checkpoint() throws IOException {
+        IOException error = failure;
+        if (error != null) {
+            throw error;
+        }
+        if (game.getBoard() != board) {
+            snapshot(); // The game was reset to a new board
+            return;
+        }
+        if (dirtyCount == 0 && game.getLives() == savedLives) {
+            return;
+        }
+        ByteBuffer batch = ByteBuffer.allocate(12 + dirtyCount * CELL_BYTES);
+        batch.putInt(dirtyCount).putInt(game.getLives());
+        for (int word = 0; word < dirty.length; word++) {
+            long bits = dirty[word];
+            while (bits != 0) {
+                int index = word << 6 | Long.numberOfTrailingZeros(bits);
+                batch.putInt(index).put((byte) board.getPlayer(index));
+                bits &= bits - 1;
+            }
+            dirty[word] = 0;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(batch.array(), 0, batch.position());
+        batch.putInt((int) crc.getValue()).flip();
+        dirtyCount = 0;
+        savedLives = game.getLives();
+        journalBytes += batch.remaining();
+        Path journal = file(generation, JOURNAL);
+        writer.execute(() -> append(journal, batch));
+        if (journalBytes > compactBytes) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Waits for every write given to the background thread so far.
+     * @throws IOException if one of them failed
+     */
+    public void flush() throws IOException {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the autosave", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+        IOException error = failure;
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Writes a last checkpoint, waits for the background thread and stops following the game.
+     * @throws IOException if a write failed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            checkpoint();
+            flush();
+        } finally {
+            game.removeBoardListener(listener);
+            writer.shutdown();
+            lockFile.close();
+        }
+    }
+
+    /**
+     * Takes the lock that lets a single journal write the files of a name, in this program or any other.
+     * @return the open lock file
+     * @throws IOException if the lock file cannot be opened or the lock is held by another journal
+     */
+    private static FileChannel lock(Path directory, String baseName) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(baseName + LOCK);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // Held by another journal of this program
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException(baseName + " is already being autosaved, " + file + " is locked");
+        }
+        return channel;
+    }
+
+    /**
+     * @return the generation of the journal being appended to
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    // Marks the cells a move changed
+    private void cellsChanged(CellChanges changes) {
+        if (game.getBoard() != board) {
+            return; // The next checkpoint takes a snapshot of the new board anyway
+        }
+        for (int i = 0; i < changes.size(); i++) {
+            int index = changes.getIndex(i);
+            long bit = 1L << index;
+            if ((dirty[index >>> 6] & bit) == 0) {
+                dirty[index >>> 6] |= bit;
+                dirtyCount++;
+            }
+        }
+    }
+
+    /**
+     * Starts a new generation: the game is forked as it is now and the fork is written in the background
+     * while the game goes on, the new changes going to the journal of the new generation.
+     * Once the snapshot is in place, the files of the older generations are deleted.
+     */
+    private void snapshot() {
+        board = game.getBoard();
+        dirty = new long[(board.size() + 63) >>> 6];
+        dirtyCount = 0;
+        savedLives = game.getLives();
+        journalBytes = 0;
+        generation++;
+        Minesweeper copy = game.snapshot(); // Constant time, the pages are shared until the game changes them
+        long snapshotGeneration = generation;
+        writer.execute(() -> writeSnapshot(copy, snapshotGeneration));
+    }
+
+    /**
+     * Runs in the background: writes a snapshot to a new temporary file next to its final name,
+     * renames it and removes the older files. The temporary name is never reused, so a file left
+     * by a crash is never written over; it is removed with the files of its generation.
+     */
+    private void writeSnapshot(Minesweeper copy, long snapshotGeneration) {
+        Path temporary = null;
+        try {
+            Path target = file(snapshotGeneration, SNAPSHOT);
+            temporary = Files.createTempFile(directory, target.getFileName() + ".", ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                SaveFormat.writeMapped(channel, copy);
+                channel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            temporary = null;
+            List<Path> older = new ArrayList<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, baseName + ".*")) {
+                for (Path file : files) {
+                    long fileGeneration = generationOf(file.getFileName().toString(), baseName);
+                    if (fileGeneration >= 0 && fileGeneration < snapshotGeneration) {
+                        older.add(file);
+                    }
+                }
+            }
+            for (Path file : older) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            fail(e);
+        } finally {
+            deleteTemporary(temporary);
+        }
+    }
+
+    // Removes the temporary file of a snapshot that failed, the first error being the one reported
+    private void deleteTemporary(Path temporary) {
+        if (temporary == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temporary);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // Runs in the background: adds a batch to a journal and syncs it
+    private void append(Path journal, ByteBuffer batch) {
+        try (FileChannel channel = FileChannel.open(journal,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    private Path file(long fileGeneration, String ending) {
+        return directory.resolve(baseName + "." + fileGeneration + ending);
+    }
+
+    /**
+     * Rebuilds a game from the newest snapshot and the journals written after it.
+     * A batch cut short by a crash, and everything after it, is left out.
+     * @param directory the folder of the files
+     * @param baseName the start of the name of every file
+     * @param game the game to load into
+     * @return false if there is no snapshot to load
+     * @throws IOException if the files cannot be read
+     */
+    public static boolean load(Path directory, String baseName, Minesweeper game) throws IOException {
+        long snapshot = newestGeneration(directory, baseName, SNAPSHOT);
+        if (snapshot == 0) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve(baseName + "." + snapshot + SNAPSHOT),
+                StandardOpenOption.READ)) {
+            SaveFormat.readMapped(channel, game);
+        }
+        long newest = newestGeneration(directory, baseName, JOURNAL);
+        byte[] code = new byte[1];
+        for (long journalGeneration = snapshot; journalGeneration <= newest; journalGeneration++) {
+            Path journal = directory.resolve(baseName + "." + journalGeneration + JOURNAL);
+            if (Files.exists(journal) && !replay(journal, game, code)) {
+                break; // A torn batch, the journals after it were written after the crash point
+            }
+        }
+        game.restored();
+        return true;
+    }
+
+    /**
+     * Applies the batches of one journal to a game.
+     * @return false if the journal ends with a batch that is cut short or damaged
+     */
+    private static boolean replay(Path journal, Minesweeper game, byte[] code) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(journal));
+        while (bytes.remaining() >= 12) {
+            int start = bytes.position();
+            int count = bytes.getInt(start);
+            long length = 8L + (long) count * CELL_BYTES;
+            if (count < 0 || bytes.remaining() < length + 4) {
+                return false;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(bytes.array(), start, (int) length);
+            if ((int) crc.getValue() != bytes.getInt(start + (int) length)) {
+                return false;
+            }
+            bytes.position(start + 4);
+            game.setLives(bytes.getInt());
+            int size = game.getBoard().size();
+            for (int i = 0; i < count; i++) {
+                int index = bytes.getInt();
+                code[0] = bytes.get();
+                if (index < 0 || index >= size || code[0] < 0 || code[0] > PackedBoard.FLAGGED) {
+                    throw new EOFException("Invalid cell in " + journal + " at " + index);
+                }
+                game.restoreCells(index, code, 1);
+            }
+            bytes.getInt(); // The checksum, already checked
+        }
+        return !bytes.hasRemaining();
+    }
+
+    /**
+     * Finds the newest generation among files of some endings.
+     * @return the generation, 0 if there is none
+     */
+    private static long newestGeneration(Path directory, String baseName, String... endings) throws IOException {
+        long newest = 0;
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, baseName + ".*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                for (String ending : endings) {
+                    if (name.endsWith(ending)) {
+                        newest = Math.max(newest, generationOf(name, baseName));
+                    }
+                }
+            }
+        }
+        return newest;
+    }
+
+    // The generation in the name of one of the files, -1 for a file that is not one of them
+    private static long generationOf(String name, String baseName) {
+        int start = baseName.length() + 1;
+        int end = name.indexOf('.', start);
+        if (!name.startsWith(baseName + ".") || end < 0) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(start, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
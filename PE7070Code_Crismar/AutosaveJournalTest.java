@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The following tests are meant for the AutosaveJournal.
+ * They autosave a generated game into a temporary folder and rebuild it from the snapshot and the journal.
+ * 
+ * @version 1.0
+ */
+public class AutosaveJournalTest {
+    @TempDir
+    Path folder;
+
+    private final Minesweeper game = new Minesweeper(20, 20, 40, 3);
+
+    // Checks that two games show the same cells and lives
+    private static void assertSameGame(Minesweeper expected, Minesweeper actual) {
+        assertEquals(expected.getLevel(), actual.getLevel());
+        assertEquals(expected.getLives(), actual.getLives());
+        for (int row = 0; row < expected.getRows(); row++) {
+            for (int col = 0; col < expected.getCols(); col++) {
+                assertEquals(expected.getCellState(row, col), actual.getCellState(row, col), row + ", " + col);
+            }
+        }
+        assertEquals(expected.getHiddenSafeCount(), actual.getHiddenSafeCount());
+    }
+
+    // Lists the names of the files in the folder
+    private String[] files() throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toArray(String[]::new);
+        }
+    }
+
+    /**
+     * Tests that a checkpoint only appends the changed cells and that the game is rebuilt from them.
+     */
+    @Test
+    public void testCheckpoints() throws IOException {
+        try (AutosaveJournal journal = new AutosaveJournal(game, folder, "game", 1 << 20)) {
+            game.makeMove(0, 0, MoveAction.FLAG);
+            game.makeMove(5, 5, MoveAction.FLAG);
+            journal.checkpoint();
+            game.makeMove(5, 5, MoveAction.FLAG);
+            game.makeMove(10, 10, MoveAction.GUESS);
+            journal.checkpoint();
+            journal.checkpoint(); // Nothing changed, nothing is written
+            journal.flush();
+            assertArrayEquals(new String[] {"game.1.journal", "game.1.snap", "game.lock"}, files());
+            CellChanges cascade = game.getLastChanges();
+            int cells = cascade.size() + 1; // The cascade and the unflagged cell, unless the cascade uncovered it
+            for (int i = 0; i < cascade.size(); i++) {
+                if (cascade.getRow(i) == 5 && cascade.getCol(i) == 5) {
+                    cells--; // A cell changed twice is only written once
+                }
+            }
+            assertEquals(2 * 12 + (2 + cells) * 5, Files.size(folder.resolve("game.1.journal")));
+        }
+        Minesweeper loaded = new Minesweeper();
+        assertTrue(AutosaveJournal.load(folder, "game", loaded));
+        assertSameGame(game, loaded);
+        assertFalse(AutosaveJournal.load(folder, "other", loaded));
+    }
+
+    /**
+     * Tests that a journal past its threshold is compacted into a new snapshot and the older files are removed.
+     */
+    @Test
+    public void testCompaction() throws IOException {
+        try (AutosaveJournal journal = new AutosaveJournal(game, folder, "game", 20)) {
+            game.makeMove(0, 0, MoveAction.FLAG);
+            journal.checkpoint(); // 17 bytes, under the threshold
+            assertEquals(1, journal.getGeneration());
+            game.makeMove(0, 1, MoveAction.FLAG);
+            journal.checkpoint(); // 34 bytes, a snapshot is taken
+            assertEquals(2, journal.getGeneration());
+            game.makeMove(0, 2, MoveAction.FLAG);
+            journal.flush();
+        }
+        assertArrayEquals(new String[] {"game.2.journal", "game.2.snap", "game.lock"}, files());
+        Minesweeper loaded = new Minesweeper();
+        AutosaveJournal.load(folder, "game", loaded);
+        assertSameGame(game, loaded);
+        assertEquals(3, loaded.getFlagCount());
+    }
+
+    /**
+     * Tests that a batch cut short by a crash is left out and the batches before it are kept.
+     */
+    @Test
+    public void testTornBatch() throws IOException {
+        try (AutosaveJournal journal = new AutosaveJournal(game, folder, "game", 1 << 20)) {
+            game.makeMove(3, 3, MoveAction.FLAG);
+            journal.checkpoint();
+        }
+        Files.write(folder.resolve("game.1.journal"), new byte[] {0, 0, 0, 1, 0, 0, 0, 3, 0, 0}, StandardOpenOption.APPEND);
+        Minesweeper loaded = new Minesweeper();
+        AutosaveJournal.load(folder, "game", loaded);
+        assertSameGame(game, loaded);
+    }
+
+    /**
+     * Tests that a second journal cannot write the files of a name while the first one is open,
+     * and that the name can be autosaved again once the first is closed.
+     */
+    @Test
+    public void testOneWriterPerName() throws IOException {
+        Minesweeper other = new Minesweeper(20, 20, 40, 4);
+        try (AutosaveJournal journal = new AutosaveJournal(game, folder, "game", 1 << 20)) {
+            assertThrows(IOException.class, () -> new AutosaveJournal(other, folder, "game", 1 << 20));
+            new AutosaveJournal(other, folder, "other", 1 << 20).close(); // Another name has its own lock
+            game.makeMove(0, 0, MoveAction.FLAG);
+        }
+        try (AutosaveJournal journal = new AutosaveJournal(other, folder, "game", 1 << 20)) {
+            assertEquals(2, journal.getGeneration()); // Goes on from the files of the first journal
+        }
+        assertArrayEquals(new String[] {"game.2.snap", "game.lock", "other.1.snap", "other.lock"}, files());
+        Minesweeper loaded = new Minesweeper();
+        AutosaveJournal.load(folder, "game", loaded);
+        assertSameGame(other, loaded);
+    }
+}
@@ -0,0 +1,465 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class lets bots play over TCP with small binary frames, for when the JSON of the GameServer is too heavy.
+ * It only listens on the loopback address. A few worker threads each run a Selector over their share of the
+ * connections, and the moves are made right on the worker thread, locking only the session they play.
+ * A client can send many requests without waiting for the answers (pipelining), the answers come back in order.
+ *
+ * Every request is REQUEST_SIZE bytes, big endian:
+ *   int opcode, int argument, long session, int row, int col
+ * NEW starts a generated game with row rows, col columns, argument mines and session as the seed.
+ * GUESS and FLAG play a cell, UNDO undoes the last move and END ends the session.
+ *
+ * Every answer starts with a HEADER_SIZE header:
+ *   int length of the whole answer, byte opcode, byte result, byte status, byte lives, long session, int move number, int runs
+ * The result is the ordinal of the MoveResult for GUESS and FLAG, 1 if UNDO undid a move, 0 otherwise,
+ * or one of the negative error codes. The status is STATUS_CONTINUE, STATUS_WON or STATUS_LOST.
+ * The header is followed by the changed cells, as runs of cells next to each other in the board:
+ *   int index of the first cell, int count, then count bytes holding what the player now sees (the PackedBoard codes)
+ *
+ * Each connection borrows a read and a write buffer from a pool of direct buffers and gives them back when it closes.
+ * An ordinary move does not create any objects: the request is decoded into the connection, the session it used last
+ * is kept, and the answer is written straight into the write buffer. Only an answer too large for the buffer,
+ * from a very large cascade, gets a buffer of its own.
+ *
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class BinaryGameServer implements AutoCloseable {
+    public static final int REQUEST_SIZE = 24; // Bytes in a request
+    public static final int HEADER_SIZE = 24; // Bytes in the header of an answer
+    public static final int RUN_HEADER_SIZE = 8; // Bytes before the cells of a run
+    // Opcodes
+    public static final int NEW = 1;
+    public static final int GUESS = 2;
+    public static final int FLAG = 3;
+    public static final int UNDO = 4;
+    public static final int END = 5;
+    // Results that are not a MoveResult
+    public static final int OK = 0;
+    public static final int UNKNOWN_SESSION = -1;
+    public static final int BAD_REQUEST = -2;
+    public static final int NO_MEMORY = -3;
+    // Status of the game after the request
+    public static final int STATUS_CONTINUE = 0;
+    public static final int STATUS_WON = 1;
+    public static final int STATUS_LOST = 2;
+
+    private static final int BUFFER_SIZE = 64 * 1024; // Bytes in every pooled buffer
+
+    private final SessionRegistry registry;
+    private final ServerSocketChannel serverChannel;
+    private final Worker[] workers;
+    private final Thread acceptor;
+    private final ConcurrentLinkedQueue<ByteBuffer> pool = new ConcurrentLinkedQueue<>(); // Free direct buffers
+    private volatile boolean closed; // Set by close, the workers stop when they see it
+
+    /**
+     * Creates the server and starts listening.
+     * @param port the port on the loopback address, 0 for any free port
+     * @param workers the number of selector threads
+     * @param registry the registry holding the games
+     * @throws IOException if the port cannot be opened
+     */
+    public BinaryGameServer(int port, int workers, SessionRegistry registry) throws IOException {
+        this.registry = registry;
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.workers = new Worker[workers];
+        for (int i = 0; i < workers; i++) {
+            this.workers[i] = new Worker(Selector.open());
+            Thread thread = new Thread(this.workers[i], "binary-server-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        this.acceptor = new Thread(this::accept, "binary-server-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Stops the server and closes every connection, the games are left in the registry.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverChannel.close();
+        for (Worker worker : workers) {
+            worker.selector.wakeup(); // The worker closes its connections on the way out
+        }
+    }
+
+    // Accepts the connections and gives them to the workers in turn
+    private void accept() {
+        int next = 0;
+        try {
+            while (true) {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Worker worker = workers[next++ % workers.length];
+                worker.incoming.add(channel);
+                worker.selector.wakeup();
+            }
+        } catch (IOException e) {
+            // The server was closed
+        }
+    }
+
+    private ByteBuffer borrowBuffer() {
+        ByteBuffer buffer = pool.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    private void returnBuffer(ByteBuffer buffer) {
+        buffer.clear();
+        pool.add(buffer);
+    }
+
+    /**
+     * One selector thread and the connections it serves.
+     */
+    private class Worker implements Runnable {
+        private final Selector selector;
+        private final ConcurrentLinkedQueue<SocketChannel> incoming = new ConcurrentLinkedQueue<>(); // Accepted, not yet registered
+
+        Worker(Selector selector) {
+            this.selector = selector;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    selector.select();
+                    SocketChannel channel;
+                    while ((channel = incoming.poll()) != null) {
+                        Connection connection = new Connection(channel, borrowBuffer(), borrowBuffer());
+                        try {
+                            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                        } catch (IOException e) {
+                            connection.close(); // The client left before it was registered
+                        }
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                connection.read();
+                            } else if (key.isWritable()) {
+                                connection.write();
+                            }
+                        } catch (IOException | RuntimeException e) {
+                            connection.close(); // Only this connection is lost, the others are still served
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // The selector failed, the connections cannot be served any more
+            } finally {
+                closeAll();
+            }
+        }
+
+        // Closes every connection of the worker and its selector
+        private void closeAll() {
+            SocketChannel channel;
+            while ((channel = incoming.poll()) != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // Nothing more can be done with it
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                ((Connection) key.attachment()).close();
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Nothing more can be done with it
+            }
+        }
+    }
+
+    /**
+     * A client, with its buffers and the request being answered.
+     */
+    private class Connection {
+        private final SocketChannel channel;
+        private ByteBuffer in; // Requests not answered yet, always ready to be filled
+        private ByteBuffer out; // Answers not sent yet, always ready to be filled
+        private ByteBuffer overflow; // An answer too large for out, sent after it
+        private SelectionKey key;
+        private GameSession session; // The session of the last request, kept to avoid finding it again
+        private int[] cells = new int[64]; // The changed cells of a move, sorted to find the runs
+        // The request being answered
+        private int opcode;
+        private int argument;
+        private long sessionId;
+        private int row;
+        private int col;
+
+        Connection(SocketChannel channel, ByteBuffer in, ByteBuffer out) {
+            this.channel = channel;
+            this.in = in;
+            this.out = out;
+        }
+
+        // Reads what the client sent and answers every complete request
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            answerRequests();
+            flush();
+        }
+
+        // Sends the rest of the answers, then goes back to the requests that were waiting for room
+        void write() throws IOException {
+            flush();
+            if (out.position() == 0 && overflow == null) {
+                answerRequests();
+                flush();
+            }
+        }
+
+        /**
+         * Answers the complete requests in the read buffer while there is room for their answers.
+         */
+        private void answerRequests() {
+            in.flip();
+            while (in.remaining() >= REQUEST_SIZE && overflow == null && out.remaining() >= HEADER_SIZE) {
+                opcode = in.getInt();
+                argument = in.getInt();
+                sessionId = in.getLong();
+                row = in.getInt();
+                col = in.getInt();
+                answer();
+            }
+            in.compact();
+        }
+
+        /**
+         * Sends as much as the socket takes, and only listens for more requests once everything was sent.
+         */
+        private void flush() throws IOException {
+            out.flip();
+            channel.write(out);
+            if (!out.hasRemaining() && overflow != null) {
+                channel.write(overflow);
+                if (!overflow.hasRemaining()) {
+                    overflow = null;
+                }
+            }
+            out.compact();
+            if (key.isValid()) {
+                key.interestOps(out.position() == 0 && overflow == null ? SelectionKey.OP_READ : SelectionKey.OP_WRITE);
+            }
+        }
+
+        /**
+         * Answers the request held in the fields of the connection.
+         */
+        private void answer() {
+            if (opcode == NEW) {
+                session = null;
+                try {
+                    session = registry.create(row, col, argument, sessionId);
+                } catch (IllegalStateException e) {
+                    writeHeader(NO_MEMORY, STATUS_CONTINUE, 0, 0, 0);
+                    return;
+                } catch (IllegalArgumentException e) {
+                    writeHeader(BAD_REQUEST, STATUS_CONTINUE, 0, 0, 0);
+                    return;
+                }
+                try {
+                    session.apply(this, BinaryGameServer::answerMove);
+                } catch (IllegalStateException e) {
+                    session = null; // Evicted by another new game before its first answer
+                    writeHeader(UNKNOWN_SESSION, STATUS_CONTINUE, 0, 0, 0);
+                }
+                return;
+            }
+            if (session == null || session.getId() != sessionId) {
+                session = registry.get(sessionId);
+            } else {
+                registry.touch(session);
+            }
+            if (session == null) {
+                writeHeader(UNKNOWN_SESSION, STATUS_CONTINUE, 0, 0, 0);
+                return;
+            }
+            if (opcode == END) {
+                registry.remove(sessionId);
+                session = null;
+                writeHeader(OK, STATUS_CONTINUE, 0, 0, 0);
+                return;
+            }
+            try {
+                session.apply(this, BinaryGameServer::answerMove);
+            } catch (IllegalStateException e) {
+                session = null; // The session was evicted or ended
+                writeHeader(UNKNOWN_SESSION, STATUS_CONTINUE, 0, 0, 0);
+            } catch (IndexOutOfBoundsException e) {
+                writeHeader(BAD_REQUEST, STATUS_CONTINUE, 0, 0, 0);
+            }
+        }
+
+        /**
+         * Makes the move of the request and writes its answer, while holding the lock of the session.
+         * @param game the game of the session
+         * @return null
+         */
+        private Void makeMove(Minesweeper game) {
+            int moveNumber = session.getMoveNumber();
+            int result;
+            switch (opcode) {
+                case NEW:
+                    result = OK;
+                    break;
+                case GUESS:
+                    result = game.makeMove(row, col, MoveAction.GUESS).ordinal();
+                    break;
+                case FLAG:
+                    result = game.makeMove(row, col, MoveAction.FLAG).ordinal();
+                    break;
+                case UNDO:
+                    result = game.undo() ? 1 : 0;
+                    break;
+                default:
+                    writeHeader(BAD_REQUEST, STATUS_CONTINUE, 0, 0, 0);
+                    return null;
+            }
+            int status = status(game.checkWin());
+            int changed = session.getMoveNumber() == moveNumber ? 0 : game.getLastChanges().size(); // Nothing changed
+            if (changed == 0) {
+                writeHeader(result, status, game.getLives(), 0, HEADER_SIZE);
+                return null;
+            }
+            int runs = sortChanges(game.getLastChanges(), changed);
+            int length = HEADER_SIZE + runs * RUN_HEADER_SIZE + changed;
+            if (length > out.remaining()) {
+                overflow = ByteBuffer.allocate(length); // Sent once out is empty, no request is answered until then
+                ByteBuffer swap = out;
+                out = overflow;
+                writeAnswer(game, result, status, runs, changed, length);
+                out = swap;
+                overflow.flip();
+            } else {
+                writeAnswer(game, result, status, runs, changed, length);
+            }
+            return null;
+        }
+
+        // Copies the changed cells and sorts them, returning the number of runs they make
+        private int sortChanges(CellChanges changes, int changed) {
+            if (cells.length < changed) {
+                cells = new int[Math.max(changed, cells.length * 2)];
+            }
+            for (int i = 0; i < changed; i++) {
+                cells[i] = changes.getIndex(i);
+            }
+            Arrays.sort(cells, 0, changed);
+            int runs = 1;
+            for (int i = 1; i < changed; i++) {
+                if (cells[i] != cells[i - 1] + 1) {
+                    runs++;
+                }
+            }
+            return runs;
+        }
+
+        // Writes the header and the runs of changed cells
+        private void writeAnswer(Minesweeper game, int result, int status, int runs, int changed, int length) {
+            writeHeader(result, status, game.getLives(), runs, length);
+            PackedBoard board = game.getBoard();
+            int start = 0;
+            for (int i = 1; i <= changed; i++) {
+                if (i == changed || cells[i] != cells[i - 1] + 1) {
+                    out.putInt(cells[start]).putInt(i - start);
+                    for (int j = start; j < i; j++) {
+                        out.put((byte) board.getPlayer(cells[j]));
+                    }
+                    start = i;
+                }
+            }
+        }
+
+        private void writeHeader(int result, int status, int lives, int runs, int length) {
+            out.putInt(Math.max(length, HEADER_SIZE))
+                .put((byte) opcode).put((byte) result).put((byte) status).put((byte) lives)
+                .putLong(session == null ? sessionId : session.getId())
+                .putInt(session == null ? 0 : session.getMoveNumber())
+                .putInt(runs);
+        }
+
+        // Closes the socket and gives the buffers back to the pool
+        void close() {
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing more can be done with it
+            }
+            if (in != null) {
+                returnBuffer(in);
+                returnBuffer(out);
+                in = out = null;
+            }
+        }
+    }
+
+    // Runs the move of a connection, a static method so the call to apply does not create a lambda every time
+    private static Void answerMove(Connection connection, Minesweeper game) {
+        return connection.makeMove(game);
+    }
+
+    // Turns the answer of checkWin into a status code
+    private static int status(String win) {
+        switch (win) {
+            case "continue": return STATUS_CONTINUE;
+            case "won": return STATUS_WON;
+            default: return STATUS_LOST;
+        }
+    }
+
+    /**
+     * Starts a server on localhost.
+     * The arguments are the port (9090 by default) and the number of worker threads (one per processor by default).
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9090;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        SessionRegistry registry = new SessionRegistry(Runtime.getRuntime().maxMemory() / 2, 30 * 60000);
+        registry.startEviction(60000);
+        BinaryGameServer server = new BinaryGameServer(port, workers, registry);
+        System.out.println("Listening on localhost:" + server.getPort());
+        server.acceptor.join();
+    }
+}
@@ -0,0 +1,115 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The following tests are meant for the BinaryGameServer.
+ * They send pipelined requests and read the answers and their runs of changed cells.
+ * 
+ * @version 1.0
+ */
+public class BinaryGameServerTest {
+    private SessionRegistry registry;
+    private BinaryGameServer server;
+    private SocketChannel channel;
+
+    /**
+     * This method starts a server and connects to it for each test.
+     */
+    @BeforeEach
+    public void setUp() throws Exception {
+        registry = new SessionRegistry(1 << 24, 60000);
+        server = new BinaryGameServer(0, 2, registry);
+        channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+    }
+
+    /**
+     * This method closes the connection and the server after each test.
+     */
+    @AfterEach
+    public void tearDown() throws Exception {
+        channel.close();
+        server.close();
+        registry.close();
+    }
+
+    // Sends the requests in the buffer
+    private void send(ByteBuffer out) throws Exception {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    // Reads one whole answer
+    private ByteBuffer answer() throws Exception {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        while (header.hasRemaining()) {
+            channel.read(header);
+        }
+        ByteBuffer body = ByteBuffer.allocate(header.getInt(0) - 4);
+        while (body.hasRemaining()) {
+            channel.read(body);
+        }
+        return body.flip();
+    }
+
+    /**
+     * Tests pipelined moves: a cascade sent as one run, a flag on a revealed cell, an undo and an unknown session.
+     */
+    @Test
+    public void testPipelinedMoves() throws Exception {
+        ByteBuffer out = ByteBuffer.allocate(1024);
+        BinaryLoadGenerator.putRequest(out, BinaryGameServer.NEW, 0, 7, 4, 5); // A 4x5 board without mines
+        send(out);
+        ByteBuffer created = answer();
+        assertEquals(BinaryGameServer.OK, created.get(1));
+        assertEquals(3, created.get(3)); // Lives
+        long session = created.getLong(4);
+
+        BinaryLoadGenerator.putRequest(out, BinaryGameServer.GUESS, 0, session, 1, 1);
+        BinaryLoadGenerator.putRequest(out, BinaryGameServer.FLAG, 0, session, 0, 0);
+        BinaryLoadGenerator.putRequest(out, BinaryGameServer.UNDO, 0, session, 0, 0);
+        BinaryLoadGenerator.putRequest(out, BinaryGameServer.GUESS, 0, session + 1, 0, 0);
+        BinaryLoadGenerator.putRequest(out, BinaryGameServer.GUESS, 0, session, 9, 9);
+        send(out); // Every request before any answer
+
+        ByteBuffer guess = answer();
+        assertEquals(MoveResult.SAFE.ordinal(), guess.get(1));
+        assertEquals(BinaryGameServer.STATUS_WON, guess.get(2));
+        assertEquals(1, guess.getInt(12)); // Move number
+        assertEquals(1, guess.getInt(16)); // One run
+        assertEquals(0, guess.getInt(20)); // Starting at the first cell
+        assertEquals(20, guess.getInt(24)); // Covering the whole board
+        for (int i = 0; i < 20; i++) {
+            assertFalse(guess.get(28 + i) == PackedBoard.HIDDEN);
+        }
+
+        ByteBuffer flag = answer();
+        assertEquals(MoveResult.ALREADY_REVEALED.ordinal(), flag.get(1));
+        assertEquals(0, flag.getInt(16));
+
+        ByteBuffer undo = answer();
+        assertEquals(1, undo.get(1));
+        assertEquals(BinaryGameServer.STATUS_CONTINUE, undo.get(2));
+        assertEquals(20, undo.getInt(24));
+        assertEquals(PackedBoard.HIDDEN, undo.get(28));
+
+        assertEquals(BinaryGameServer.UNKNOWN_SESSION, answer().get(1));
+        assertEquals(BinaryGameServer.BAD_REQUEST, answer().get(1));
+    }
+
+    /**
+     * Tests that the load generator gets answers from the server.
+     */
+    @Test
+    public void testLoadGenerator() throws Exception {
+        assertTrue(new BinaryLoadGenerator(server.getPort(), 10, 10, 16).run(2, 200) > 0);
+    }
+}
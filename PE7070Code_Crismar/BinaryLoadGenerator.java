@@ -0,0 +1,170 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class measures how many moves per second the BinaryGameServer answers on the loopback address.
+ * Every connection starts its own game and keeps a fixed number of requests in flight (the pipeline depth),
+ * sending a new move each time an answer comes back. The moves flag and unflag the cells of the board in turn,
+ * so a game never ends and every move changes one cell.
+ *
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class BinaryLoadGenerator {
+    private final int port;
+    private final int rows;
+    private final int cols;
+    private final int depth; // Requests in flight on each connection
+    private final LongAdder moves = new LongAdder(); // Answers received by every connection
+    private final AtomicBoolean running = new AtomicBoolean(true);
+
+    /**
+     * Creates a load generator.
+     * @param port the port of the server on localhost
+     * @param rows the rows of every game
+     * @param cols the columns of every game
+     * @param depth the requests in flight on each connection
+     */
+    public BinaryLoadGenerator(int port, int rows, int cols, int depth) {
+        this.port = port;
+        this.rows = rows;
+        this.cols = cols;
+        this.depth = depth;
+    }
+
+    /**
+     * Plays on some connections for a while.
+     * @param connections the number of connections, each on its own thread
+     * @param millis how long to play
+     * @return the moves answered per second
+     */
+    public double run(int connections, long millis) throws InterruptedException {
+        Thread[] threads = new Thread[connections];
+        for (int i = 0; i < connections; i++) {
+            long seed = i;
+            threads[i] = new Thread(() -> play(seed), "load-" + i);
+            threads[i].start();
+        }
+        long start = System.nanoTime();
+        Thread.sleep(millis);
+        running.set(false);
+        long elapsed = System.nanoTime() - start;
+        long count = moves.sum();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return count * 1e9 / elapsed;
+    }
+
+    /**
+     * Plays one game over one connection until the run ends.
+     * @param seed the seed of the game
+     */
+    private void play(long seed) {
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port))) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ByteBuffer out = ByteBuffer.allocateDirect(depth * BinaryGameServer.REQUEST_SIZE);
+            ByteBuffer in = ByteBuffer.allocateDirect(64 * 1024);
+            putRequest(out, BinaryGameServer.NEW, 0, seed, rows, cols);
+            send(channel, out);
+            long session = readAnswers(channel, in, 1);
+            int cell = 0;
+            for (int i = 0; i < depth; i++) {
+                putRequest(out, BinaryGameServer.FLAG, 0, session, cell / cols, cell % cols);
+                cell = (cell + 1) % (rows * cols);
+            }
+            send(channel, out);
+            while (running.get()) {
+                int answered = (int) readAnswers(channel, in, 0);
+                moves.add(answered);
+                for (int i = 0; i < answered; i++) {
+                    putRequest(out, BinaryGameServer.FLAG, 0, session, cell / cols, cell % cols);
+                    cell = (cell + 1) % (rows * cols);
+                }
+                send(channel, out);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("The connection failed", e);
+        }
+    }
+
+    /**
+     * Writes a request into a buffer.
+     * @param out the buffer
+     * @param opcode the opcode
+     * @param argument the argument, the mines for NEW
+     * @param session the session, the seed for NEW
+     * @param row the row, the rows for NEW
+     * @param col the column, the columns for NEW
+     */
+    static void putRequest(ByteBuffer out, int opcode, int argument, long session, int row, int col) {
+        out.putInt(opcode).putInt(argument).putLong(session).putInt(row).putInt(col);
+    }
+
+    // Sends everything in the buffer and empties it
+    private static void send(SocketChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * Reads complete answers.
+     * @param channel the connection
+     * @param in the buffer holding the bytes not read yet
+     * @param wanted the answers to wait for, 0 to take every answer that has arrived once there is at least one
+     * @return the session of the answer if one answer was wanted, otherwise the number of answers read
+     */
+    private static long readAnswers(SocketChannel channel, ByteBuffer in, int wanted) throws IOException {
+        int answers = 0;
+        long session = 0;
+        do {
+            if (channel.read(in) < 0) {
+                throw new IOException("The server closed the connection");
+            }
+            in.flip();
+            while (in.remaining() >= BinaryGameServer.HEADER_SIZE && in.remaining() >= in.getInt(in.position())) {
+                int length = in.getInt(in.position());
+                session = in.getLong(in.position() + 8);
+                in.position(in.position() + length);
+                answers++;
+            }
+            in.compact();
+        } while (answers < Math.max(wanted, 1));
+        return wanted == 1 ? session : answers;
+    }
+
+    /**
+     * Starts a server on a free port and measures it.
+     * The arguments are the connections (8), the pipeline depth (64), the seconds (10) and the board size (30).
+     * Give a port as fifth argument to measure a server that is already running.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 10;
+        int size = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        BinaryGameServer server = null;
+        int port;
+        if (args.length > 4) {
+            port = Integer.parseInt(args[4]);
+        } else {
+            int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+            server = new BinaryGameServer(0, workers, new SessionRegistry(Runtime.getRuntime().maxMemory() / 2, 60000));
+            port = server.getPort();
+        }
+        double rate = new BinaryLoadGenerator(port, size, size, depth).run(connections, seconds * 1000);
+        System.out.printf("%d connections, depth %d: %.0f moves/s%n", connections, depth, rate);
+        if (server != null) {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * This interface is implemented by anything that wants to know when cells of the board change.
+ * The game calls it once per action with every cell the action changed,
+ * so a batch of moves or a large cascade is a single call and not one call per cell.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public interface BoardListener {
+    /**
+     * Called after an action changed the board.
+     * The list is reused by the game, it should not be kept after the call returns.
+     * @param changes the cells that changed
+     */
+    void boardChanged(CellChanges changes);
+}
@@ -3,7 +3,7 @@ import java.awt.*;
 
 /**
  * The ButtonsMenu class creates a panel containing all the control buttons for game.
- * The buttons are used to: save, load, undo, reset the game, switch modes, change levels,
+ * The buttons are used to: save, load, undo, redo, reset the game, switch modes, change levels,
  * show instructions, and quit the game.
  * 
  * @author Mircea-Rafael Crismar
@@ -39,6 +39,11 @@ public class ButtonsMenu extends JPanel {
         undoButton.setMaximumSize(BUTTON_SIZE);
         add(undoButton);
 
+        JButton redoButton = ButtonMaker.createButton("Redo", e -> parent.redoMove());
+        redoButton.setPreferredSize(BUTTON_SIZE);
+        redoButton.setMaximumSize(BUTTON_SIZE);
+        add(redoButton);
+
         JButton resetButton = ButtonMaker.createButton("Reset", e -> parent.resetGame());
         resetButton.setPreferredSize(BUTTON_SIZE);
         resetButton.setMaximumSize(BUTTON_SIZE);
@@ -0,0 +1,88 @@
+import java.util.Arrays;
+
+/**
+ * This class holds the list of cells changed by the last action in the game.
+ * It is reused from one move to the next, so making a move does not create new objects
+ * and the GUI can repaint every changed cell in one go.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class CellChanges {
+    private final int cols; // Number of columns in the board, used to turn an index back into a row and column
+    private int[] cells; // Indexes of the changed cells
+    private int size; // Number of changed cells in the list
+
+    /**
+     * Creates an empty list of changes for a board.
+     * @param cols the number of columns in the board
+     */
+    public CellChanges(int cols) {
+        this.cols = cols;
+        this.cells = new int[16];
+    }
+
+    /**
+     * Empties the list so it can be used for the next action.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds a changed cell to the list.
+     * @param index the index of the cell in the board
+     */
+    public void add(int index) {
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, size * 2); // Only grows, the space is kept for later moves
+        }
+        cells[size++] = index;
+    }
+
+    /**
+     * Adds every cell of another list to this one.
+     * @param other the list to copy from
+     */
+    public void addAll(CellChanges other) {
+        if (size + other.size > cells.length) {
+            cells = Arrays.copyOf(cells, Math.max(cells.length * 2, size + other.size));
+        }
+        System.arraycopy(other.cells, 0, cells, size, other.size);
+        size += other.size;
+    }
+
+    /**
+     * @return the number of changed cells
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the index of a changed cell.
+     * @param i the position in the list
+     * @return the index of the cell in the board
+     */
+    public int getIndex(int i) {
+        return cells[i];
+    }
+
+    /**
+     * Gets the row of a changed cell.
+     * @param i the position in the list
+     * @return the row of the cell
+     */
+    public int getRow(int i) {
+        return cells[i] / cols;
+    }
+
+    /**
+     * Gets the column of a changed cell.
+     * @param i the position in the list
+     * @return the column of the cell
+     */
+    public int getCol(int i) {
+        return cells[i] % cols;
+    }
+}
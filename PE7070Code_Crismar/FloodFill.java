@@ -0,0 +1,75 @@
+import java.util.Arrays;
+
+/**
+ * This class uncovers a cell and, when that cell is empty ("-" or "0"), keeps uncovering
+ * the cells around it, the same way the real Minesweeper does.
+ * It works with a queue of cell indexes instead of recursion, so very large open areas
+ * cannot overflow the stack. A cell is uncovered as soon as it is reached, which also stops it from
+ * being reached twice, so no set of visited cells is needed and only the empty cells go in the queue.
+ * The queue is kept between calls and starts small, so a flood fill costs nothing that grows with the board
+ * and a snapshot of the game that uncovers a few cells stays cheap.
+ *
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class FloodFill {
+    private final PackedBoard board; // The board being uncovered
+    private int[] queue; // Empty cells whose neighbours are still to be uncovered
+
+    /**
+     * Creates the flood fill for a board.
+     * @param board the board it will uncover
+     */
+    public FloodFill(PackedBoard board) {
+        this.board = board;
+        this.queue = new int[64];
+    }
+
+    /**
+     * Uncovers a cell and every empty area connected to it.
+     * Flagged cells and mines are never uncovered by the cascade.
+     * @param start the index of the first cell, it should be hidden and not a mine
+     * @param changes the list where every uncovered cell is added
+     * @return the number of cells uncovered
+     */
+    public int reveal(int start, CellChanges changes) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        int head = 0;
+        int tail = 0;
+        int revealed = 1;
+        if (uncover(start, changes)) {
+            queue[tail++] = start;
+        }
+
+        while (head < tail) {
+            int index = queue[head++];
+            int row = index / cols;
+            int col = index % cols;
+            for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+                for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                    int next = r * cols + c;
+                    if (board.getPlayer(next) != PackedBoard.HIDDEN || board.isMine(next)) {
+                        continue;
+                    }
+                    revealed++;
+                    if (uncover(next, changes)) { // Only empty cells open their neighbours
+                        if (tail == queue.length) {
+                            queue = Arrays.copyOf(queue, Math.min(tail * 2, board.size()));
+                        }
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        return revealed;
+    }
+
+    // Shows the number or the empty space of a cell, returns true if the cell is empty
+    private boolean uncover(int index, CellChanges changes) {
+        int code = board.getSolution(index);
+        board.setPlayer(index, code);
+        changes.add(index);
+        return code == 0 || code == PackedBoard.BLANK;
+    }
+}
@@ -0,0 +1,151 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This class holds the Java Flight Recorder events of the game, so a recording shows the moves,
+ * level loads, saves and repaints next to the garbage collections and the Swing thread.
+ * The events are off unless a recording turns them on, for example with the settings in minesweeper.jfc:
+ *   java -XX:StartFlightRecording:settings=default,settings=minesweeper.jfc,filename=game.jfr MinesweeperGUI
+ * An event that is off costs a check of a flag, the JIT removes the event object itself.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+final class GameEvents {
+    private GameEvents() {
+    }
+
+    /**
+     * A move made through makeMove, from any player.
+     */
+    @Name("minesweeper.Move")
+    @Label("Move")
+    @Category("Minesweeper")
+    @Description("A guess or a flag made on the board")
+    @StackTrace(false)
+    static final class Move extends Event {
+        @Label("Rows")
+        int rows;
+
+        @Label("Columns")
+        int cols;
+
+        @Label("Row")
+        int row;
+
+        @Label("Column")
+        int col;
+
+        @Label("Action")
+        String action;
+
+        @Label("Result")
+        String result;
+
+        @Label("Cells Changed")
+        int cellsChanged;
+    }
+
+    /**
+     * A new board, read from a level file or generated.
+     */
+    @Name("minesweeper.LevelLoad")
+    @Label("Level Load")
+    @Category("Minesweeper")
+    @Description("A board read from a level file or generated")
+    static final class LevelLoad extends Event {
+        @Label("Level")
+        String level;
+
+        @Label("Rows")
+        int rows;
+
+        @Label("Columns")
+        int cols;
+
+        @Label("Generated")
+        boolean generated;
+    }
+
+    /**
+     * A game written to its save file.
+     */
+    @Name("minesweeper.Save")
+    @Label("Save")
+    @Category("Minesweeper")
+    @Description("A game written to its save file")
+    static final class Save extends Event {
+        @Label("Level")
+        String level;
+
+        @Label("Rows")
+        int rows;
+
+        @Label("Columns")
+        int cols;
+
+        @Label("Bytes Written")
+        @DataAmount
+        long bytesWritten;
+    }
+
+    /**
+     * A saved game loaded into the window.
+     */
+    @Name("minesweeper.Load")
+    @Label("Load")
+    @Category("Minesweeper")
+    @Description("A saved game read and put on the grid")
+    static final class Load extends Event {
+        @Label("Level")
+        String level;
+
+        @Label("Rows")
+        int rows;
+
+        @Label("Columns")
+        int cols;
+
+        @Label("Cells Loaded")
+        int cellsLoaded;
+    }
+
+    /**
+     * A click on the grid, from the click to the end of its repaint and messages, on the Swing thread.
+     */
+    @Name("minesweeper.Click")
+    @Label("Click")
+    @Category({"Minesweeper", "Swing"})
+    @Description("A click on a cell handled on the Swing thread")
+    @StackTrace(false)
+    static final class Click extends Event {
+        @Label("Row")
+        int row;
+
+        @Label("Column")
+        int col;
+
+        @Label("Cells Changed")
+        int cellsChanged;
+    }
+
+    /**
+     * The grid of buttons built again for a new game.
+     */
+    @Name("minesweeper.GridRebuild")
+    @Label("Grid Rebuild")
+    @Category({"Minesweeper", "Swing"})
+    @Description("The grid of buttons built again for a new or changed game")
+    static final class GridRebuild extends Event {
+        @Label("Rows")
+        int rows;
+
+        @Label("Columns")
+        int cols;
+    }
+}
@@ -0,0 +1,43 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The test class GameEventsTest is used to test the flight recorder events of the game.
+ *
+ * @version 1.0
+ */
+public class GameEventsTest {
+    @TempDir
+    Path folder;
+
+    @Test
+    //Tests that moves and level loads show up in a recording with their values
+    public void testEventsRecorded() throws IOException {
+        Path file = folder.resolve("game.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("minesweeper.Move").withThreshold(Duration.ZERO);
+            recording.enable("minesweeper.LevelLoad");
+            recording.start();
+            Minesweeper game = new Minesweeper();
+            game.makeMove(3, 3, MoveAction.GUESS);
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent move = events.stream()
+            .filter(event -> event.getEventType().getName().equals("minesweeper.Move")).findFirst().orElseThrow();
+        assertEquals(5, move.getInt("rows"));
+        assertEquals("SAFE", move.getString("result"));
+        assertTrue(move.getInt("cellsChanged") > 1);
+        assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("minesweeper.LevelLoad")
+            && event.getString("level").equals("Levels/em1.txt")));
+    }
+}
@@ -1,12 +1,24 @@
 import javax.swing.JTextArea;
 import java.util.List;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Stack;
+import java.util.Arrays;
 
 /**
  * This is the class that handles all the file processing needed for the game.
  * It has methods for saving and loading the game to and from files.
+ * Games are saved in the binary format of SaveFormat, the older text saves can still be loaded.
+ * A save is written to a temporary file that then replaces the old save in one step,
+ * so a crash while saving leaves the old save as it was instead of half a new one.
+ * Every save has its own temporary file, so two saves of the same level at once cannot write over each other.
  * It has other secondary methods to check for data validation and error handling
  * 
  * @version 2.0 (Final)
@@ -17,17 +29,67 @@ public class GameFileHandler {
     /**
      * This method creates the save file name based on the current level.
      * It replaces "em" with "lvl" and removes the ".txt" and appends "saved.txt" instead.
+     * A generated level has no file, so its save goes in the Levels folder under its own name.
      * 
      * @param level is the original level file name
      * @return the name of file where the progress was saved for that level
      */
     private static String getSaveFileName(String level) {
+        if (LevelGenerator.isGenerated(level)) {
+            return "Levels/" + level + "saved.txt";
+        }
         // Replace "em" with "lvl" and ".txt" with "saved.txt"
         return level.replace("em", "lvl").replace(".txt", "saved.txt");
     }
 
     /**
-     * This method handles the game being saved to the file.
+     * This method handles the game being saved to the file, in the binary format of SaveFormat.
+     * The file is memory mapped and the cells are packed straight into it.
+     * The map is released before the file replaces the old save, as a mapped file cannot be moved on Windows.
+     * 
+     * @param game the game to save
+     * @throws IOException is used in case any input or output errors occur
+     */
+    public static void saveGame(Minesweeper game) throws IOException {
+        saveGame(game, getSaveFileName(game.getLevel())); // Gets the save file for the current level
+    }
+
+    /**
+     * This method saves a game to a file of its own rather than the save file of its level,
+     * for games that must not overwrite the save of the player, such as the games of the GameServer.
+     * 
+     * @param game the game to save
+     * @param fileName the file to save to
+     * @throws IOException is used in case any input or output errors occur
+     */
+    public static void saveGame(Minesweeper game, String fileName) throws IOException {
+        Path temporary = createTemporary(Paths.get(fileName));
+        long start = GameMetrics.start();
+        GameEvents.Save event = new GameEvents.Save();
+        event.begin();
+        long written;
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                written = SaveFormat.writeMapped(channel, game);
+                channel.force(true);
+            }
+            replaceSave(temporary, Paths.get(fileName));
+        } finally {
+            Files.deleteIfExists(temporary); // Only left behind if the save failed
+            GameMetrics.stop(GameMetrics.SAVE_GAME, start);
+        }
+        if (event.shouldCommit()) {
+            event.level = game.getLevel();
+            event.rows = game.getRows();
+            event.cols = game.getCols();
+            event.bytesWritten = written;
+            event.commit();
+        }
+    }
+
+    /**
+     * This method saves the game in the old text format, one line per row with a space after every cell.
+     * It is kept for the classes that still use Slots, saveGame(Minesweeper) writes smaller files.
      * 
      * @param playerBoard represents the current game board
      * @param level is the level file
@@ -36,24 +98,173 @@ public class GameFileHandler {
      */
     public static void saveGame(Slot[][] playerBoard, String level, int lives) throws IOException {
         String fileName = getSaveFileName(level); // Gets the save file for the current level
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName))) {
-            writer.write(level); // Writes the level 
-            writer.newLine(); // Goes on the next line
-            writer.write(String.valueOf(lives)); // Writes the number of lives
-            writer.newLine();
-            int size = playerBoard.length;
-            for (int i = 0; i < size; i++) {
-                for (int j = 0; j < size; j++) {
-                    writer.write(playerBoard[i][j].getState() + " "); // Write the state of each slot in the right position
-                    
+        Path temporary = createTemporary(Paths.get(fileName));
+        long start = GameMetrics.start();
+        GameEvents.Save event = new GameEvents.Save();
+        event.begin();
+        try {
+            try (FileOutputStream out = new FileOutputStream(temporary.toFile());
+                 BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out))) {
+                writer.write(level); // Writes the level 
+                writer.newLine(); // Goes on the next line
+                writer.write(String.valueOf(lives)); // Writes the number of lives
+                writer.newLine();
+                for (int i = 0; i < playerBoard.length; i++) {
+                    for (int j = 0; j < playerBoard[i].length; j++) {
+                        writer.write(playerBoard[i][j].getState() + " "); // Write the state of each slot in the right position
+                        
+                    }
+                    writer.newLine(); // Goes to the next row in the board
+                }
+                writer.flush();
+                out.getFD().sync(); // On the disk before it replaces the old save
+            }
+            replaceSave(temporary, Paths.get(fileName));
+        } finally {
+            Files.deleteIfExists(temporary); // Only left behind if the save failed
+            GameMetrics.stop(GameMetrics.SAVE_GAME, start);
+        }
+        if (event.shouldCommit()) {
+            event.level = level;
+            event.rows = playerBoard.length;
+            event.cols = playerBoard.length == 0 ? 0 : playerBoard[0].length;
+            event.bytesWritten = new File(fileName).length();
+            event.commit();
+        }
+    }
+
+    /**
+     * This method creates an empty temporary file next to a save file, with a name no other save is using.
+     * 
+     * @param target the save file
+     * @return the new temporary file
+     * @throws IOException if the file cannot be created
+     */
+    private static Path createTemporary(Path target) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        return Files.createTempFile(absolute.getParent(), absolute.getFileName().toString() + ".", ".tmp");
+    }
+
+    /**
+     * This method puts a finished save in place of the old one in a single step.
+     * Where the file system cannot move atomically, the old save is simply replaced.
+     * 
+     * @param temporary the finished save
+     * @param target the save file
+     * @throws IOException if the file cannot be moved
+     */
+    private static void replaceSave(Path temporary, Path target) throws IOException {
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * This method loads the saved game of a level into a game, whichever format it was saved in.
+     * A binary save is memory mapped and its cells are copied into the board a page at a time.
+     * The game is reset to the level named in the save, its cells and lives are then set and its moves forgotten.
+     * 
+     * @param level the name of the level file
+     * @param game the game to load into
+     * @return the number of cells loaded, 0 if the save holds no cells and the game was left as it was
+     * @throws IOException if the save cannot be read or is damaged
+     */
+    public static int loadGame(String level, Minesweeper game) throws IOException {
+        GameEvents.Load event = new GameEvents.Load();
+        event.begin();
+        int cells = loadSave(level, game);
+        if (event.shouldCommit() && cells > 0) {
+            event.level = game.getLevel();
+            event.rows = game.getRows();
+            event.cols = game.getCols();
+            event.cellsLoaded = cells;
+            event.commit();
+        }
+        return cells;
+    }
+
+    // Loads a binary save through a map, or a text save through loadGame
+    private static int loadSave(String level, Minesweeper game) throws IOException {
+        String fileName = getSaveFileName(level);
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            channel.read(magic, 0); // Looks at the start without moving the channel
+            if (magic.position() == 4 && magic.getInt(0) == SaveFormat.MAGIC) {
+                long start = GameMetrics.start();
+                try {
+                    return SaveFormat.readMapped(channel, game);
+                } finally {
+                    GameMetrics.stop(GameMetrics.LOAD_GAME, start);
                 }
-                writer.newLine(); // Goes to the next row in the board
             }
         }
+        return loadTextGame(loadGame(level), game);
+    }
+
+    /**
+     * This method puts the cells of a save in the text format into a game.
+     * 
+     * @param gameState the level, the lives and the rows of cell states, as read by loadGame
+     * @param game the game to load into
+     * @return the number of cells loaded
+     */
+    private static int loadTextGame(List<String[]> gameState, Minesweeper game) {
+        int elementCount = gameState.stream().skip(2).mapToInt(row -> row.length).sum(); 
+        // Count the number of elements excluding the first two rows
+        if (elementCount == 0) {
+            return 0;
+        }
+        game.resetGame(gameState.get(0)[0]); // Set/Reset the game with the loaded level
+        game.setLives(Integer.parseInt(gameState.get(1)[0])); // Set/Reset the number of lives
+        for (int i = 2; i < gameState.size() && i - 2 < game.getRows(); i++) {
+            String[] states = gameState.get(i);
+            for (int j = 0; j < states.length && j < game.getCols(); j++) {
+                new Assign(game, i - 2, j, states[j]); // Assign the state to the cell in the game grid
+            }
+        }
+        game.clearHistory(); // The loaded cells were not moves, they cannot be undone
+        return elementCount;
+    }
+
+    /**
+     * This method starts autosaving a game: every checkpoint of the journal only appends the cells changed
+     * since the one before, and a full snapshot is written in the background once the journal is as large as one.
+     * The files go next to the save file of the level.
+     * 
+     * @param game the game to autosave, checkpoint has to be called on the thread that plays it
+     * @return the journal, to be checkpointed every few seconds and closed when the game ends
+     * @throws IOException if the folder of the save cannot be read
+     */
+    public static AutosaveJournal startAutosave(Minesweeper game) throws IOException {
+        Path base = getAutosaveBase(game.getLevel());
+        long compactBytes = Math.max(1 << 20, game.getBoard().size() / 4); // About the size of a snapshot
+        return new AutosaveJournal(game, base.getParent(), base.getFileName().toString(), compactBytes);
+    }
+
+    /**
+     * This method loads the autosave of a level into a game, from its last snapshot and the journal after it.
+     * 
+     * @param level the name of the level file
+     * @param game the game to load into
+     * @return false if the level has no autosave
+     * @throws IOException if the autosave cannot be read
+     */
+    public static boolean loadAutosave(String level, Minesweeper game) throws IOException {
+        Path base = getAutosaveBase(level);
+        return AutosaveJournal.load(base.getParent(), base.getFileName().toString(), game);
+    }
+
+    // The folder and the start of the names of the autosave files of a level, such as Levels/lvl1autosave
+    private static Path getAutosaveBase(String level) {
+        Path save = Paths.get(getSaveFileName(level)).toAbsolutePath();
+        return save.resolveSibling(save.getFileName().toString().replace("saved.txt", "autosave"));
     }
 
     /**
-     * This method was created to load the cell states from the file.
+     * This method was created to load the cell states from a save in the text format.
+     * Every row keeps all of its columns, hidden cells at the end of the row included.
      * 
      * @param level the name of the level file
      * @return a list of strings with the cells states
@@ -63,7 +274,7 @@ public class GameFileHandler {
     public static List<String[]> loadGame(String level) throws IOException {
         String fileName = getSaveFileName(level); // gets the save file name
         List<String[]> gameState = new ArrayList<>();//creates an empty list
-        
+        long start = GameMetrics.start();
         try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
             String lvl = reader.readLine(); // Read the level name
             gameState.add(new String[]{lvl});//Adds it to the game
@@ -73,9 +284,14 @@ public class GameFileHandler {
             String line;
             
             while ((line = reader.readLine()) != null) {
-                String[] row = line.split(" "); // Split each line into individual cell states
+                String[] row = line.split(" ", -1); // Split each line into individual cell states, keeping the empty ones
+                if (row.length > 0 && line.endsWith(" ")) {
+                    row = Arrays.copyOf(row, row.length - 1); // Every cell is followed by a space, the last one ends the row
+                }
                 gameState.add(row);
             }
+        } finally {
+            GameMetrics.stop(GameMetrics.LOAD_GAME, start);
         }
         
         return gameState;
@@ -87,43 +303,27 @@ public class GameFileHandler {
      * @param game the instance of the Minesweeper 
      * @param gameGrid the grid containing all the cells
      * @param messageArea the area that displays all messages to the user
-     * @param previousMoves a stack used to keep track of all the moves
      */
-    public static void loadGameToGUI(String level, Minesweeper game, GameGrid gameGrid, JTextArea messageArea, Stack<int[]> previousMoves) {
+    public static void loadGameToGUI(String level, Minesweeper game, GameGrid gameGrid, JTextArea messageArea) {
         if (!isSaveFilePresent(level)) {
             messageArea.append("There is no saved game to load for this current level.\n");
             return;
         }
         try {
-            List<String[]> gameState = loadGame(level); // Load the game state from the file 
-            
-            int elementCount = gameState.stream().skip(2).mapToInt(row -> row.length).sum(); 
-            // Count the number of elements excluding the first two rows
+            int elementCount = loadGame(level, game); // Load the game state from the file 
             if (elementCount == 0) {
                 messageArea.append("There is no saved version for this level.\n");
                 return;
                 //in case there are 0 elemts it returns a message
             }
-            
-            String loadedLevel = gameState.get(0)[0];//updates the              
-            int lives = Integer.parseInt(gameState.get(1)[0]);
-            
-            game.resetGame(loadedLevel); // Set/Reset the game with the loaded level
-            game.setLives(lives); // Set/Reset the number of lives
-            
-            for (int i = 2; i < gameState.size(); i++) {
-                String[] states = gameState.get(i);
-                for (int j = 0; j < states.length; j++) {
-                    new Assign(game, i - 2, j, states[j]); // Assign the state to the cell in the game grid
-                }
-            }
+            String loadedLevel = game.getLevel();
+            int lives = game.getLives();
             gameGrid.setGame(game); // Set the game in the game grid
             gameGrid.updateAllButtons(); // Update the GUI buttons
-            previousMoves.clear(); // Clear previous moves
             
             String levelNumber = loadedLevel.replace("Levels/em", "").replace(".txt", "");
             messageArea.append("Game loaded for Level " + levelNumber + " with " + lives + " lives!\n");
-        } catch (IOException e) {
+        } catch (IOException | RuntimeException e) { // A damaged text save can hold numbers that do not parse
             messageArea.append("Failed to load the saved game.\n");
         }
     }
@@ -1,12 +1,10 @@
 import javax.swing.*;
 import java.awt.*;
-import java.util.Observable;
-import java.util.Observer;
 /**
  * This class creates and manages the grid of buttons for the game.
  * Each button represents a different cell in the game and updates
  * its state based on the different actions.
- * Works with the Minesweeper game logic to observe and respond to state changes in each cell (Slot).
+ * Listens to the Minesweeper game once for the whole board and only repaints the cells each action changed.
  * Updates the buttons based on the game state and handle user interactions through the GUI.
  * 
  * @author Mircea-Rafael Crismar
@@ -16,39 +14,56 @@ public class GameGrid extends JPanel {
     private JButton[][] buttons; // Grid of buttons
     private Minesweeper game; // Minesweeper game instance
     private final MinesweeperGUI parent; // Parent GUI
+    private final BoardListener listener = this::cellsChanged; // The one listener this grid adds to its game
+    private long[] dirty; // One bit per cell changed since the buttons were last updated
+    private boolean updateQueued; // True while an update of the dirty cells is waiting on the Swing thread
 
-    // Constructor sets up the game grid
+    // Constructor sets up the game grid, the parent can be null for a grid that is never clicked (headless)
     public GameGrid(Minesweeper game, MinesweeperGUI parent) {
         this.game = game;
         this.parent = parent;
         initializeBoard();
+        game.addBoardListener(listener);
     }
 
     // Initializes the board with buttons
     private void initializeBoard() {
-        int size = game.getGameSize();
-        setLayout(new GridLayout(size, size)); // Set grid layout
-        buttons = new JButton[size][size]; // Create button grid
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
+        int rows = game.getRows();
+        int cols = game.getCols();
+        setLayout(new GridLayout(rows, cols)); // Set grid layout
+        buttons = new JButton[rows][cols]; // Create button grid
+        dirty = new long[(rows * cols + 63) >>> 6];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
                 final int row = i;
                 final int col = j;
                 buttons[i][j] = new JButton();
-                buttons[i][j].addActionListener(e -> parent.handleButtonClick(row, col)); // Add click listener
+                if (parent != null) {
+                    buttons[i][j].addActionListener(e -> parent.handleButtonClick(row, col)); // Add click listener
+                }
                 add(buttons[i][j]); // Add button to panel
-                game.getMoves()[i][j].addObserver(new SlotObserver(buttons[i][j])); // Observe slot
                 updateButton(i, j); // Update button state
             }
         }
     }
 
-    // Sets a new game and reinitializes the board
+    // Sets a new game and reinitializes the board, the old game is no longer listened to
     public void setGame(Minesweeper game) {
+        this.game.removeBoardListener(listener);
+        game.removeBoardListener(listener); // The same game can be set again after a level change
+        game.addBoardListener(listener);
         this.game = game;
+        GameEvents.GridRebuild event = new GameEvents.GridRebuild();
+        event.begin();
         removeAll();
         initializeBoard();
         revalidate();
         repaint();
+        if (event.shouldCommit()) {
+            event.rows = game.getRows();
+            event.cols = game.getCols();
+            event.commit();
+        }
     }
 
     // Updates the state of a button
@@ -58,13 +73,22 @@ public class GameGrid extends JPanel {
         button.setText(state.equals("") ? "" : state);
     }
 
+    // Updates only the buttons of the cells that changed
+    public void updateButtons(CellChanges changes) {
+        for (int i = 0; i < changes.size(); i++) {
+            updateButton(changes.getRow(i), changes.getCol(i));
+        }
+    }
+
     // Updates all buttons on the board
     public void updateAllButtons() {
-        for (int i = 0; i < game.getGameSize(); i++) {
-            for (int j = 0; j < game.getGameSize(); j++) {
+        long start = GameMetrics.start();
+        for (int i = 0; i < game.getRows(); i++) {
+            for (int j = 0; j < game.getCols(); j++) {
                 updateButton(i, j);
             }
         }
+        GameMetrics.stop(GameMetrics.REPAINT, start);
     }
 
     // Returns the game instance
@@ -72,18 +96,49 @@ public class GameGrid extends JPanel {
         return game;
     }
 
-    // Observer class to update button when slot state changes
-    private static class SlotObserver implements Observer {
-        private final JButton button;
+    // Called by the game after every action. On the Swing thread the changed buttons are updated straight away,
+    // from any other thread the cells are marked dirty and one update is queued for all the actions until it runs
+    private synchronized void cellsChanged(CellChanges changes) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            long start = GameMetrics.start();
+            for (int i = 0; i < changes.size(); i++) {
+                updateButtonIfShown(changes.getRow(i), changes.getCol(i));
+            }
+            GameMetrics.stop(GameMetrics.REPAINT, start);
+            return;
+        }
+        for (int i = 0; i < changes.size(); i++) {
+            int index = changes.getIndex(i);
+            if (index >>> 6 < dirty.length) {
+                dirty[index >>> 6] |= 1L << index;
+            }
+        }
+        if (!updateQueued) {
+            updateQueued = true;
+            SwingUtilities.invokeLater(this::updateDirtyButtons);
+        }
+    }
 
-        public SlotObserver(JButton button) {
-            this.button = button;
+    // Updates the buttons of every dirty cell and clears the dirty bits
+    private synchronized void updateDirtyButtons() {
+        updateQueued = false;
+        long start = GameMetrics.start();
+        for (int word = 0; word < dirty.length; word++) {
+            long bits = dirty[word];
+            dirty[word] = 0;
+            while (bits != 0) {
+                int index = word << 6 | Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                updateButtonIfShown(index / game.getCols(), index % game.getCols());
+            }
         }
+        GameMetrics.stop(GameMetrics.REPAINT, start);
+    }
 
-        @Override
-        public void update(Observable o, Object arg) {
-            Slot slot = (Slot) o;
-            button.setText(slot.getState().equals("") ? "" : slot.getState());
+    // Updates a button, unless the game has moved to a bigger level than the buttons shown
+    private void updateButtonIfShown(int row, int col) {
+        if (row < buttons.length && col < buttons[row].length) {
+            updateButton(row, col);
         }
     }
 }
@@ -0,0 +1,256 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * This class counts how often the slow parts of the game run and how long they take.
+ * It is turned on with -Dminesweeper.metrics=true, and then it is published over JMX as
+ * minesweeper:type=GameMetrics. With -Dminesweeper.metrics.file=path a summary is also
+ * written to that file when the program ends.
+ *
+ * ENABLED is a static final, so when it is false the JIT removes every call to start and stop,
+ * and the metrics cost nothing. When it is true, a timed operation costs two reads of the clock
+ * and a few atomic additions, without locks, so it is cheap enough to stay on while people play.
+ * checkWin takes a couple of nanoseconds, so it is only counted: timing it would cost more than running it.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public final class GameMetrics implements GameMetricsMXBean {
+    public static final boolean ENABLED = Boolean.getBoolean("minesweeper.metrics");
+    private static final String NAME = "minesweeper:type=GameMetrics";
+
+    // Timed operations
+    static final Timer MOVE = new Timer("MOVE");
+    static final Timer CASCADE = new Timer("CASCADE");
+    static final Timer INITIALIZE_GAME = new Timer("INITIALIZE_GAME");
+    static final Timer SAVE_GAME = new Timer("SAVE_GAME");
+    static final Timer LOAD_GAME = new Timer("LOAD_GAME");
+    static final Timer REPAINT = new Timer("REPAINT");
+    private static final Timer[] TIMERS = {MOVE, CASCADE, INITIALIZE_GAME, SAVE_GAME, LOAD_GAME, REPAINT};
+
+    private static final LongAdder CELLS_REVEALED = new LongAdder(); // Cells uncovered by cascades
+    private static final LongAdder CHECK_WIN_CALLS = new LongAdder();
+    private static final GameMetrics INSTANCE = new GameMetrics();
+
+    static {
+        if (ENABLED) {
+            register();
+            String file = System.getProperty("minesweeper.metrics.file");
+            if (file != null) {
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        INSTANCE.dump(Paths.get(file));
+                    } catch (IOException e) {
+                        System.err.println("Could not write the metrics to " + file + ": " + e.getMessage());
+                    }
+                }));
+            }
+        }
+    }
+
+    private GameMetrics() {
+    }
+
+    /**
+     * @return the metrics of the game, the same object JMX clients see
+     */
+    public static GameMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts timing an operation.
+     * @return the time to give to stop, 0 when the metrics are off
+     */
+    static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time of an operation started with start.
+     * @param timer the operation
+     * @param start the value returned by start
+     */
+    static void stop(Timer timer, long start) {
+        if (ENABLED) {
+            timer.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Counts the cells uncovered by a cascade.
+     * @param cells the number of cells
+     */
+    static void cellsRevealed(int cells) {
+        if (ENABLED) {
+            CELLS_REVEALED.add(cells);
+        }
+    }
+
+    /**
+     * Counts a call to checkWin.
+     */
+    static void checkWinCalled() {
+        if (ENABLED) {
+            CHECK_WIN_CALLS.increment();
+        }
+    }
+
+    // Publishes the metrics on the platform MBean server, a second registration is ignored
+    private static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(NAME));
+        } catch (JMException e) {
+            System.err.println("Could not publish the metrics over JMX: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        return collect(LatencyHistogram::getCount);
+    }
+
+    @Override
+    public Map<String, Long> getMeanNanos() {
+        Map<String, Long> means = new LinkedHashMap<>();
+        for (Timer timer : TIMERS) {
+            means.put(timer.name, timer.getMean());
+        }
+        return means;
+    }
+
+    @Override
+    public Map<String, Long> getMedianNanos() {
+        return collect(histogram -> histogram.getPercentile(50));
+    }
+
+    @Override
+    public Map<String, Long> getP99Nanos() {
+        return collect(histogram -> histogram.getPercentile(99));
+    }
+
+    @Override
+    public Map<String, Long> getMaxNanos() {
+        return collect(LatencyHistogram::getMax);
+    }
+
+    @Override
+    public long getCellsRevealed() {
+        return CELLS_REVEALED.sum();
+    }
+
+    @Override
+    public long getCheckWinCalls() {
+        return CHECK_WIN_CALLS.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (Timer timer : TIMERS) {
+            timer.reset();
+        }
+        CELLS_REVEALED.reset();
+        CHECK_WIN_CALLS.reset();
+    }
+
+    /**
+     * Writes every counter and percentile to a text file.
+     * It is only called by the shutdown hook, JMX clients cannot write files with it.
+     * @param file the path of the file
+     * @throws IOException if the file cannot be written
+     */
+    void dump(Path file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file))) {
+            writer.println("# Minesweeper metrics " + Instant.now() + (ENABLED ? "" : " (disabled)"));
+            writer.println("operation count mean_ns p50_ns p90_ns p99_ns p99.9_ns max_ns");
+            for (Timer timer : TIMERS) {
+                LatencyHistogram histogram = timer.snapshot();
+                writer.println(timer.name + " " + histogram.getCount() + " " + timer.getMean() + " "
+                    + histogram.getPercentile(50) + " " + histogram.getPercentile(90) + " "
+                    + histogram.getPercentile(99) + " " + histogram.getPercentile(99.9) + " " + histogram.getMax());
+            }
+            writer.println("cells_revealed " + getCellsRevealed());
+            writer.println("check_win_calls " + getCheckWinCalls());
+        }
+    }
+
+    // Reads one value from the histogram of every operation
+    private static Map<String, Long> collect(ToLongFunction<LatencyHistogram> value) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Timer timer : TIMERS) {
+            values.put(timer.name, value.applyAsLong(timer.snapshot()));
+        }
+        return values;
+    }
+
+    /**
+     * The times of one operation. It uses the buckets of LatencyHistogram, but every bucket is an
+     * atomic counter, so any thread can record without a lock.
+     */
+    static final class Timer {
+        private final String name;
+        private final AtomicLongArray buckets = new AtomicLongArray(LatencyHistogram.BUCKETS);
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        Timer(String name) {
+            this.name = name;
+        }
+
+        // Records one time
+        void record(long nanos) {
+            long value = Math.max(nanos, 0);
+            buckets.incrementAndGet(LatencyHistogram.bucket(value));
+            totalNanos.add(value);
+            if (value > max.get()) {
+                max.accumulateAndGet(value, Math::max);
+            }
+        }
+
+        // Copies the times recorded so far into a histogram
+        LatencyHistogram snapshot() {
+            long[] counts = new long[LatencyHistogram.BUCKETS];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+            }
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.add(counts, max.get());
+            return histogram;
+        }
+
+        // The average time, 0 if nothing was recorded
+        long getMean() {
+            long count = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                count += buckets.get(i);
+            }
+            return count == 0 ? 0 : totalNanos.sum() / count;
+        }
+
+        void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+            totalNanos.reset();
+            max.set(0);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+import java.util.Map;
+
+/**
+ * This interface is what JConsole, VisualVM or any JMX client sees of the game metrics,
+ * under the name minesweeper:type=GameMetrics. The maps are keyed by the name of the operation
+ * (MOVE, CASCADE, INITIALIZE_GAME, SAVE_GAME, LOAD_GAME, REPAINT) and the times are in nanoseconds.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public interface GameMetricsMXBean {
+    /**
+     * @return true if the game records metrics, set with -Dminesweeper.metrics=true when the game starts
+     */
+    boolean isEnabled();
+
+    /**
+     * @return the number of times every operation ran
+     */
+    Map<String, Long> getCounts();
+
+    /**
+     * @return the average time of every operation
+     */
+    Map<String, Long> getMeanNanos();
+
+    /**
+     * @return the median time of every operation
+     */
+    Map<String, Long> getMedianNanos();
+
+    /**
+     * @return the 99th percentile of the time of every operation
+     */
+    Map<String, Long> getP99Nanos();
+
+    /**
+     * @return the longest time of every operation
+     */
+    Map<String, Long> getMaxNanos();
+
+    /**
+     * @return the number of cells uncovered by cascades
+     */
+    long getCellsRevealed();
+
+    /**
+     * @return the number of times checkWin was called
+     */
+    long getCheckWinCalls();
+
+    /**
+     * Forgets every value recorded so far.
+     */
+    void reset();
+}
@@ -0,0 +1,66 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The test class GameMetricsTest is used to test the functionality of GameMetrics class.
+ * The tests record into the timers directly, so they work whether the metrics are turned on or not.
+ *
+ * @version 1.0
+ */
+public class GameMetricsTest {
+    @TempDir
+    Path folder;
+
+    @AfterEach
+    public void tearDown() {
+        GameMetrics.get().reset();
+    }
+
+    @Test
+    //Tests that the times recorded by a timer come back in its counts and percentiles
+    public void testTimer() {
+        for (int i = 1; i <= 1000; i++) {
+            GameMetrics.MOVE.record(i * 1000L);
+        }
+        assertEquals(1000L, GameMetrics.get().getCounts().get("MOVE"));
+        assertEquals(500500L, GameMetrics.get().getMeanNanos().get("MOVE"));
+        assertEquals(500000, GameMetrics.get().getMedianNanos().get("MOVE"), 500000 * 0.07);
+        assertEquals(1000000L, GameMetrics.get().getMaxNanos().get("MOVE"));
+        assertEquals(0L, GameMetrics.get().getCounts().get("SAVE_GAME"));
+        GameMetrics.get().reset();
+        assertEquals(0L, GameMetrics.get().getCounts().get("MOVE"));
+    }
+
+    @Test
+    //Tests that the dump holds a line for every operation
+    public void testDump() throws IOException {
+        GameMetrics.CASCADE.record(1234);
+        Path file = folder.resolve("metrics.txt");
+        GameMetrics.get().dump(file);
+        List<String> lines = Files.readAllLines(file);
+        assertTrue(lines.contains("CASCADE 1 1234 1234 1234 1234 1234 1234"));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("REPAINT 0 ")));
+    }
+
+    @Test
+    //Tests that the metrics can be published and read over JMX
+    public void testMXBean() throws Exception {
+        GameMetrics.LOAD_GAME.record(50);
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        ObjectName name = new ObjectName("minesweeper:type=GameMetrics");
+        server.registerMBean(GameMetrics.get(), name);
+        assertEquals(GameMetrics.ENABLED, server.getAttribute(name, "Enabled"));
+        assertNotNull(server.getAttribute(name, "Counts"));
+        server.invoke(name, "reset", null, null);
+        assertEquals(0L, GameMetrics.get().getCounts().get("LOAD_GAME"));
+    }
+}
@@ -0,0 +1,352 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Pattern;
+
+/**
+ * This class lets bots and load tests play through HTTP, without the Swing GUI.
+ * It only listens on the loopback address. Every request runs on its own virtual thread when the JDK has them,
+ * and the games are kept in a SessionRegistry so each request only locks its own game.
+ *
+ * The parameters are passed in the query and every answer is a JSON object:
+ *   POST   /games?level=Levels/em1.txt or /games?rows=16&amp;cols=30&amp;mines=99&amp;seed=1   starts a game
+ *   POST   /games/{id}/move?row=0&amp;col=1     guesses a cell
+ *   POST   /games/{id}/flag?row=0&amp;col=1     flags or unflags a cell
+ *   POST   /games/{id}/undo                  undoes the last move
+ *   POST   /games/{id}/save                  saves the game to Levels/session{id}saved.txt
+ *   GET    /games/{id}/state?since=5         the cells changed after move number 5, every changed cell without it
+ *   DELETE /games/{id}                       ends the game
+ * The cells are sent as [row, col, "text"] arrays, with the same text as getCellState. A client starts with every
+ * cell hidden and only ever needs the cells that changed since the last move number it has seen.
+ *
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class GameServer implements AutoCloseable {
+    private static final Pattern LEVEL_FILE = Pattern.compile("Levels/[A-Za-z0-9_-]+\\.txt"); // The level files a client may open
+
+    private final HttpServer server;
+    private final ExecutorService executor; // Runs the requests
+    private final SessionRegistry registry;
+
+    /**
+     * Creates the server and starts listening.
+     * @param port the port on the loopback address, 0 for any free port
+     * @param registry the registry holding the games
+     * @throws IOException if the port cannot be opened
+     */
+    public GameServer(int port, SessionRegistry registry) throws IOException {
+        this.registry = registry;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = SimulationRunner.newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/games", this::handle);
+        server.start();
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server, the games are left in the registry.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Answers one request, turning every error into a JSON answer with its status code.
+     * @param exchange the request
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            body = route(exchange);
+        } catch (HttpError e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (IllegalStateException e) {
+            status = 503; // The memory cap was reached
+            body = error(e.getMessage());
+        } catch (UncheckedIOException e) {
+            status = 500;
+            body = error(e.getCause().getMessage());
+        } catch (RuntimeException e) {
+            status = 500; // Any other failure of the request still gets an answer
+            body = error(e.toString());
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Finds the action a request asks for and runs it.
+     * @param exchange the request
+     * @return the JSON answer
+     */
+    private String route(HttpExchange exchange) {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().split("/"); // "", "games", id, action
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        if (path.length == 2) {
+            requireMethod(method, "POST");
+            return newGame(query);
+        }
+        long id = parseId(path[2]);
+        if (path.length == 3) {
+            requireMethod(method, "DELETE");
+            if (!registry.remove(id)) {
+                throw new HttpError(404, "No game " + path[2]);
+            }
+            return "{\"id\":\"" + path[2] + "\",\"ended\":true}";
+        }
+        if (path.length != 4) {
+            throw new HttpError(404, "Unknown path");
+        }
+        GameSession session = registry.get(id);
+        if (session == null) {
+            throw new HttpError(404, "No game " + path[2]);
+        }
+        try {
+            switch (path[3]) {
+                case "move":
+                    requireMethod(method, "POST");
+                    return move(session, query, MoveAction.GUESS);
+                case "flag":
+                    requireMethod(method, "POST");
+                    return move(session, query, MoveAction.FLAG);
+                case "undo":
+                    requireMethod(method, "POST");
+                    return session.apply(game -> {
+                        int since = session.getMoveNumber();
+                        boolean undone = game.undo();
+                        return state(session, game, lastChanges(session, game, since), "\"undone\":" + undone + ",");
+                    });
+                case "save":
+                    requireMethod(method, "POST");
+                    return save(session);
+                case "state":
+                    requireMethod(method, "GET");
+                    int since = Integer.parseInt(query.getOrDefault("since", "0"));
+                    return session.apply(game -> state(session, game, session.changesSince(since), ""));
+                default:
+                    throw new HttpError(404, "Unknown action " + path[3]);
+            }
+        } catch (IllegalStateException e) {
+            throw new HttpError(404, e.getMessage()); // The game ended while the request was waiting for it
+        }
+    }
+
+    /**
+     * Starts a game on a level file or on a generated board.
+     * @param query the parameters of the request
+     * @return the id and size of the game
+     */
+    private String newGame(Map<String, String> query) {
+        GameSession session;
+        String level = query.get("level");
+        if (level != null) {
+            if (LevelGenerator.isGenerated(level)) {
+                LevelGenerator.Description description = LevelGenerator.parse(level); // Its size is checked before it is built
+                session = registry.create(description.getRows(), description.getCols(), description.getMines(),
+                    description.getSeed());
+            } else if (LEVEL_FILE.matcher(level).matches() && new File(level).isFile()) {
+                session = registry.create(level);
+            } else {
+                throw new HttpError(400, "Unknown level " + level);
+            }
+        } else {
+            session = registry.create(Integer.parseInt(require(query, "rows")), Integer.parseInt(require(query, "cols")),
+                Integer.parseInt(require(query, "mines")), Long.parseLong(query.getOrDefault("seed", "0")));
+        }
+        return session.apply(game -> "{\"id\":\"" + session.getId() + "\",\"level\":" + quote(game.getLevel())
+            + ",\"rows\":" + game.getRows() + ",\"cols\":" + game.getCols() + ",\"lives\":" + game.getLives()
+            + ",\"move\":" + session.getMoveNumber() + "}");
+    }
+
+    /**
+     * Saves a game to a file of its own, so it never overwrites the save of the player or of another game.
+     * The board is copied under the lock of the session and the copy is written after it is released,
+     * so the moves of the game go on while the file is written.
+     * @param session the game
+     * @return the level and the file of the save
+     */
+    private static String save(GameSession session) {
+        Minesweeper copy = session.apply(Minesweeper::snapshot); // Constant time, later moves do not change the copy
+        String file = "Levels/session" + session.getId() + "saved.txt";
+        try {
+            GameFileHandler.saveGame(copy, file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return "{\"saved\":true,\"level\":" + quote(copy.getLevel()) + ",\"file\":" + quote(file) + "}";
+    }
+
+    /**
+     * Makes a move and answers with its result and the cells it changed.
+     * @param session the game
+     * @param query the parameters of the request
+     * @param action guess or flag
+     * @return the result of the move
+     */
+    private String move(GameSession session, Map<String, String> query, MoveAction action) {
+        int row = Integer.parseInt(require(query, "row"));
+        int col = Integer.parseInt(require(query, "col"));
+        return session.apply(game -> {
+            int since = session.getMoveNumber();
+            MoveResult result = game.makeMove(row, col, action);
+            return state(session, game, lastChanges(session, game, since), "\"result\":\"" + result + "\",\"message\":"
+                + quote(result.getMessage(game.getLives())) + ",");
+        });
+    }
+
+    /**
+     * Gives the cells changed by the action just made, without looking at the rest of the board.
+     * @param session the game
+     * @param game the engine of the game
+     * @param since the move number before the action
+     * @return the cells the action changed, none if it changed nothing
+     */
+    private static CellChanges lastChanges(GameSession session, Minesweeper game, int since) {
+        return session.getMoveNumber() == since ? new CellChanges(game.getCols()) : game.getLastChanges();
+    }
+
+    /**
+     * Writes the state of a game with a list of changed cells.
+     * @param session the game
+     * @param game the engine of the game
+     * @param changes the cells to send
+     * @param extra fields written first, each followed by a comma
+     * @return the JSON object
+     */
+    private static String state(GameSession session, Minesweeper game, CellChanges changes, String extra) {
+        StringBuilder json = new StringBuilder(64 + changes.size() * 12);
+        json.append('{').append(extra)
+            .append("\"status\":\"").append(game.checkWin())
+            .append("\",\"lives\":").append(game.getLives())
+            .append(",\"move\":").append(session.getMoveNumber())
+            .append(",\"cells\":[");
+        for (int i = 0; i < changes.size(); i++) {
+            int row = changes.getRow(i);
+            int col = changes.getCol(i);
+            json.append(i == 0 ? "[" : ",[").append(row).append(',').append(col).append(",\"")
+                .append(game.getCellState(row, col)).append("\"]");
+        }
+        return json.append("]}").toString();
+    }
+
+    // Parses an id, an unknown id is a missing game rather than a bad request
+    private static long parseId(String id) {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            throw new HttpError(404, "No game " + id);
+        }
+    }
+
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw new HttpError(405, "Use " + expected);
+        }
+    }
+
+    private static String require(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null) {
+            throw new HttpError(400, "Missing parameter " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Splits the query of a request into its parameters.
+     * @param raw the query as sent, may be null
+     * @return the decoded parameters
+     */
+    static Map<String, String> parseQuery(String raw) {
+        Map<String, String> query = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    // Writes a text as a JSON string
+    static String quote(String text) {
+        StringBuilder json = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c == '\n') {
+                json.append("\\n");
+            } else if (c < ' ') {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    private static String error(String message) {
+        return "{\"error\":" + quote(message == null ? "Bad request" : message) + "}";
+    }
+
+    /**
+     * An error answered with its own status code.
+     */
+    private static class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Starts a server on localhost.
+     * The arguments are the port (8080 by default) and the idle minutes after which a game is ended (30 by default).
+     * Half of the heap is given to the games.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        long idleMinutes = args.length > 1 ? Long.parseLong(args[1]) : 30;
+        SessionRegistry registry = new SessionRegistry(Runtime.getRuntime().maxMemory() / 2, idleMinutes * 60000);
+        registry.startEviction(60000);
+        GameServer server = new GameServer(port, registry);
+        System.out.println("Listening on http://localhost:" + server.getPort() + "/games");
+    }
+}
@@ -0,0 +1,131 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The following tests are meant for the GameServer.
+ * They play the first level through HTTP and check the answers and the cells sent back.
+ * 
+ * @version 1.0
+ */
+public class GameServerTest {
+    private SessionRegistry registry;
+    private GameServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    /**
+     * This method starts a server on a free port for each test.
+     */
+    @BeforeEach
+    public void setUp() throws Exception {
+        registry = new SessionRegistry(1 << 24, 60000);
+        server = new GameServer(0, registry);
+    }
+
+    /**
+     * This method stops the server after each test.
+     */
+    @AfterEach
+    public void tearDown() {
+        server.close();
+        registry.close();
+    }
+
+    // Sends a request and checks its status code
+    private String send(String method, String path, int status) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+            .method(method, HttpRequest.BodyPublishers.noBody()).build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(status, response.statusCode(), response.body());
+        return response.body();
+    }
+
+    // Reads the id out of the answer to a new game
+    private static String id(String json) {
+        int start = json.indexOf("\"id\":\"") + 6;
+        return json.substring(start, json.indexOf('"', start));
+    }
+
+    /**
+     * Tests a game played through the server, with the cells of each move and the deltas of the state.
+     */
+    @Test
+    public void testPlay() throws Exception {
+        String game = send("POST", "/games?level=Levels/em1.txt", 200);
+        assertTrue(game.contains("\"rows\":5"));
+        String id = id(game);
+        String move = send("POST", "/games/" + id + "/move?row=0&col=1", 200);
+        assertEquals("{\"result\":\"SAFE\",\"message\":\"Good move, keep guessing!\",\"status\":\"continue\",\"lives\":3,\"move\":1,\"cells\":[[0,1,\"1\"]]}", move);
+        String flag = send("POST", "/games/" + id + "/flag?row=0&col=0", 200);
+        assertTrue(flag.contains("\"move\":2,\"cells\":[[0,0,\"?\"]]"));
+        assertTrue(send("GET", "/games/" + id + "/state?since=1", 200).endsWith("\"cells\":[[0,0,\"?\"]]}"));
+        assertTrue(send("GET", "/games/" + id + "/state", 200).endsWith("\"cells\":[[0,0,\"?\"],[0,1,\"1\"]]}"));
+        String undo = send("POST", "/games/" + id + "/undo", 200);
+        assertTrue(undo.contains("\"undone\":true") && undo.endsWith("\"cells\":[[0,0,\"\"]]}"));
+    }
+
+    /**
+     * Tests the errors: unknown games and levels, missing parameters and wrong methods.
+     */
+    @Test
+    public void testErrors() throws Exception {
+        send("GET", "/games/42/state", 404);
+        send("POST", "/games?level=../secret.txt", 400);
+        send("POST", "/games?level=gen-8x8-1-0-anything", 400);
+        send("POST", "/games?level=gen-40000x40000-1-0", 503); // Refused before the board is built
+        String id = id(send("POST", "/games?rows=8&cols=8&mines=10&seed=3", 200));
+        send("POST", "/games/" + id + "/move?row=0", 400);
+        send("POST", "/games/" + id + "/move?row=9&col=0", 400);
+        send("GET", "/games/" + id + "/move?row=0&col=0", 405);
+        send("DELETE", "/games/" + id, 200);
+        send("GET", "/games/" + id + "/state", 404);
+    }
+
+    /**
+     * Tests that two games of the same level saved at the same time each get their own file,
+     * never the save of the level, and leave no temporary file behind.
+     */
+    @Test
+    public void testConcurrentSaves() throws Exception {
+        String level = "gen-12x12-20-7f3a";
+        String first = id(send("POST", "/games?level=" + level, 200));
+        String second = id(send("POST", "/games?level=" + level, 200));
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> saves = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                for (String id : new String[] {first, second}) {
+                    saves.add(pool.submit(() -> send("POST", "/games/" + id + "/save", 200)));
+                }
+            }
+            for (Future<?> save : saves) {
+                save.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertFalse(Files.exists(Paths.get("Levels/" + level + "saved.txt")));
+        for (String id : new String[] {first, second}) {
+            Path save = Paths.get("Levels/session" + id + "saved.txt");
+            assertTrue(Files.exists(save));
+            Files.delete(save);
+        }
+        try (Stream<Path> files = Files.list(Paths.get("Levels"))) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+}
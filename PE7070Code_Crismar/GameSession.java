@@ -0,0 +1,179 @@
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * This class is one game hosted by the SessionRegistry, known by its id.
+ * A Minesweeper is not thread safe, so every session has its own lock and the game is only used
+ * while holding it. Two sessions never wait for each other, whatever threads their players use.
+ * Every change of the board gets the next move number, and every cell remembers the number of its
+ * last change, so a client can ask for the cells changed since the last move it has seen.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class GameSession {
+    private static final long OVERHEAD_BYTES = 4096; // The objects of a game that do not grow with the board
+
+    private final long id;
+    private final Minesweeper game;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long estimatedBytes; // Memory counted against the cap of the registry
+    private final int[] changedAt; // The move number of the last change of every cell, 0 if it never changed
+    private int moveNumber; // The number of changes of the board so far
+    private volatile long lastAccess; // Time of the last use, from the clock of the registry
+    private volatile boolean closed; // Set once the session is removed from the registry
+
+    /**
+     * Creates a session.
+     * @param id the id of the session
+     * @param game the game of the session
+     * @param now the time of creation
+     */
+    GameSession(long id, Minesweeper game, long now) {
+        this.id = id;
+        this.game = game;
+        this.estimatedBytes = estimateBytes(game);
+        this.changedAt = new int[game.getBoard().size()];
+        this.lastAccess = now;
+        game.addBoardListener(this::boardChanged);
+    }
+
+    // Stamps the changed cells with a new move number, it always runs inside apply
+    private void boardChanged(CellChanges changes) {
+        moveNumber++;
+        for (int i = 0; i < changes.size(); i++) {
+            changedAt[changes.getIndex(i)] = moveNumber;
+        }
+    }
+
+    /**
+     * Works out the memory a game takes: one byte per cell for the board, the same again for the views
+     * and engines that can be created on it, four for the move numbers kept by the session,
+     * and the objects that do not depend on the size.
+     * @param game the game
+     * @return the estimate in bytes
+     */
+    static long estimateBytes(Minesweeper game) {
+        return estimateBytes(game.getBoard().size());
+    }
+
+    /**
+     * Works out the memory of a game from the number of cells of its board, before the game is built.
+     * @param cells the number of cells
+     * @return the estimate in bytes, the same as for the game once it is built
+     */
+    static long estimateBytes(long cells) {
+        return 6L * cells + OVERHEAD_BYTES;
+    }
+
+    /**
+     * @return the id of the session
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Runs an action on the game while holding the lock of the session.
+     * Everything that reads or changes the game has to go through this method.
+     * @param action the action, it should not keep the game after it returns
+     * @param <T> the type of the result
+     * @return what the action returned
+     * @throws IllegalStateException if the session was removed from the registry
+     */
+    public <T> T apply(Function<Minesweeper, T> action) {
+        return apply(action, Function::apply);
+    }
+
+    /**
+     * Runs an action on the game while holding the lock of the session, passing it an argument.
+     * With an action that captures nothing, a busy caller can make moves without creating any objects.
+     * @param argument the argument given to the action
+     * @param action the action, it should not keep the game after it returns
+     * @param <A> the type of the argument
+     * @param <T> the type of the result
+     * @return what the action returned
+     * @throws IllegalStateException if the session was removed from the registry
+     */
+    public <A, T> T apply(A argument, BiFunction<A, Minesweeper, T> action) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Session " + id + " has ended");
+            }
+            return action.apply(argument, game);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives the number of the last change of the board. It must be called inside apply.
+     * @return the move number, 0 before the first change
+     */
+    public int getMoveNumber() {
+        return moveNumber;
+    }
+
+    /**
+     * Finds the cells changed after a move number. It must be called inside apply.
+     * @param since the last move number the caller has seen, 0 for every cell changed since the start
+     * @return the changed cells, in the order of the board
+     */
+    public CellChanges changesSince(int since) {
+        int cols = game.getBoard().getCols();
+        CellChanges changes = new CellChanges(cols);
+        for (int index = 0; index < changedAt.length; index++) {
+            if (changedAt[index] > since) {
+                changes.add(index);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * @return the memory counted for the session
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * @return the time of the last use of the session
+     */
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    // Notes a use of the session
+    void touch(long now) {
+        lastAccess = now;
+    }
+
+    /**
+     * Ends the session if no one is using it.
+     * @return false if a player is using the session right now
+     */
+    boolean tryClose() {
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            closed = true;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Ends the session, waiting for the player using it to finish
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,716 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class works out the exact chance of a mine under every hidden cell that touches an uncovered number
+ * (the frontier), using only what the player can see and the total number of mines.
+ *
+ * The frontier is split into components: groups of cells linked by the numbers around them.
+ * Each component is enumerated on its own with backtracking, counting the solutions for every number
+ * of mines it can hold. The components are then combined with the cells away from the frontier,
+ * where the remaining mines can be anywhere, by weighting every total with the number of ways
+ * those cells can hold the rest (a binomial coefficient).
+ *
+ * The components are kept from one call to the next. A move marks the cells within two cells of every cell
+ * it changed as dirty: the frontier around a changed cell, and the cells around the numbers whose mines left
+ * it changes, are all that close. Only the components holding a dirty cell are taken apart and found again,
+ * and a component found again with the same cells and mines left keeps its enumeration.
+ * The frontier itself is kept up to date from the cells each move changes.
+ *
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class HintEngine {
+    private static final int MAX_NODES = 1 << 22; // Most backtracking steps for one component before giving up
+
+    private final PackedBoard board; // Board of the game, only the player view is read
+    private final int rows;
+    private final int cols;
+    private final int totalMines; // Mines on the whole board, a player knows this number
+    private final boolean[] onFrontier; // Whether each cell is on the frontier
+    private final boolean[] visited; // Frontier cells already put in a component, cleared after each call
+    private final boolean[] dirty; // Cells whose component has to be found again
+    private int[] dirtyCells; // The dirty cells, in the order they were marked
+    private int dirtyCount;
+    private int seenModCount; // Board changes the engine knows about
+    private final Map<Integer, Component> owners = new HashMap<>(); // The component of every frontier cell
+    private final List<Component> components = new ArrayList<>(); // The components, by their smallest cell
+
+    /**
+     * Creates the hint engine for a board and finds its frontier.
+     * @param board the board of the game
+     */
+    public HintEngine(PackedBoard board) {
+        this.board = board;
+        this.rows = board.getRows();
+        this.cols = board.getCols();
+        int mines = 0;
+        for (int i = 0; i < board.size(); i++) {
+            mines += board.isMine(i) ? 1 : 0;
+        }
+        this.totalMines = mines;
+        this.onFrontier = new boolean[board.size()];
+        this.visited = new boolean[board.size()];
+        this.dirty = new boolean[board.size()];
+        this.dirtyCells = new int[64];
+        rebuildFrontier();
+    }
+
+    /**
+     * Tells the engine which cells the last move changed, so it can update the frontier around them.
+     * @param changes the cells changed by the move
+     */
+    public void cellsChanged(CellChanges changes) {
+        seenModCount += changes.size();
+        if (seenModCount != board.getModCount()) {
+            rebuildFrontier(); // Some change was not reported, start again from the board
+            return;
+        }
+        for (int i = 0; i < changes.size(); i++) {
+            int index = changes.getIndex(i);
+            int row = index / cols;
+            int col = index % cols;
+            for (int r = Math.max(row - 2, 0); r <= Math.min(row + 2, rows - 1); r++) {
+                for (int c = Math.max(col - 2, 0); c <= Math.min(col + 2, cols - 1); c++) {
+                    if (Math.abs(r - row) <= 1 && Math.abs(c - col) <= 1) {
+                        updateFrontier(r * cols + c);
+                    }
+                    markDirty(r * cols + c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Works out the chance of a mine for every frontier cell.
+     * @return the hints
+     */
+    public Hints getHints() {
+        if (seenModCount != board.getModCount()) {
+            rebuildFrontier();
+        }
+        Map<Key, Component> dropped = new HashMap<>(); // Taken apart, kept in case they are found again unchanged
+        for (int i = 0; i < dirtyCount; i++) { // Grows while the components are taken apart
+            Component component = owners.get(dirtyCells[i]);
+            if (component != null) {
+                for (int j = 0; j < component.cellCount(); j++) {
+                    int cell = component.key.values[j];
+                    owners.remove(cell);
+                    markDirty(cell);
+                }
+                dropped.put(component.key, component);
+                component.dropped = true;
+            }
+        }
+        if (!dropped.isEmpty()) {
+            components.removeIf(component -> component.dropped);
+        }
+        Arrays.sort(dirtyCells, 0, dirtyCount); // Each component is then found from its smallest cell, as always
+        int kept = components.size();
+        for (int i = 0; i < dirtyCount; i++) {
+            int cell = dirtyCells[i];
+            if (onFrontier[cell] && !visited[cell]) {
+                Key key = collectComponent(cell);
+                Component component = dropped.get(key);
+                if (component == null) {
+                    component = new Component(key);
+                    component.enumerate();
+                }
+                component.dropped = false;
+                components.add(component);
+                for (int j = 0; j < key.cellCount; j++) {
+                    owners.put(key.values[j], component);
+                }
+            }
+        }
+        for (int i = 0; i < dirtyCount; i++) {
+            visited[dirtyCells[i]] = false; // Only dirty cells were put in components
+            dirty[dirtyCells[i]] = false;
+        }
+        dirtyCount = 0;
+        if (components.size() > kept) {
+            components.sort((a, b) -> Integer.compare(a.key.values[0], b.key.values[0]));
+        }
+        return combine(components);
+    }
+
+    // Adds or removes one cell from the frontier
+    private void updateFrontier(int index) {
+        onFrontier[index] = board.getPlayer(index) == PackedBoard.HIDDEN && touchesNumber(index);
+    }
+
+    // Notes that the component of a cell has to be found again
+    private void markDirty(int index) {
+        if (!dirty[index]) {
+            dirty[index] = true;
+            if (dirtyCount == dirtyCells.length) {
+                dirtyCells = Arrays.copyOf(dirtyCells, dirtyCount * 2);
+            }
+            dirtyCells[dirtyCount++] = index;
+        }
+    }
+
+    // Finds the frontier by looking at every cell of the board, every component is found again
+    private void rebuildFrontier() {
+        owners.clear();
+        components.clear();
+        for (int i = 0; i < board.size(); i++) {
+            updateFrontier(i);
+            if (onFrontier[i]) {
+                markDirty(i);
+            }
+        }
+        seenModCount = board.getModCount();
+    }
+
+    // Checks if a cell has an uncovered number next to it
+    private boolean touchesNumber(int index) {
+        int row = index / cols;
+        int col = index % cols;
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                if (isNumber(r * cols + c)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Checks if a cell shows a number (an empty cell counts as the number 0)
+    private boolean isNumber(int index) {
+        int state = board.getPlayer(index);
+        return state <= 8 || state == PackedBoard.BLANK;
+    }
+
+    /**
+     * Finds all the frontier cells linked to a cell through shared numbers, in the order they were reached,
+     * and the numbers around them.
+     * @return the key of the component: its cells, then each number with the mines it still needs
+     */
+    private Key collectComponent(int start) {
+        List<Integer> cells = new ArrayList<>();
+        List<Integer> numbers = new ArrayList<>();
+        Set<Integer> seenNumbers = new HashSet<>();
+        visited[start] = true;
+        cells.add(start);
+        for (int i = 0; i < cells.size(); i++) {
+            int cell = cells.get(i);
+            int row = cell / cols;
+            int col = cell % cols;
+            for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+                for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                    int number = r * cols + c;
+                    if (!isNumber(number) || !seenNumbers.add(number)) {
+                        continue;
+                    }
+                    numbers.add(number);
+                    for (int nr = Math.max(r - 1, 0); nr <= Math.min(r + 1, rows - 1); nr++) {
+                        for (int nc = Math.max(c - 1, 0); nc <= Math.min(c + 1, cols - 1); nc++) {
+                            int next = nr * cols + nc;
+                            if (onFrontier[next] && !visited[next]) {
+                                visited[next] = true;
+                                cells.add(next);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        int[] key = new int[cells.size() + numbers.size() * 2];
+        for (int i = 0; i < cells.size(); i++) {
+            key[i] = cells.get(i);
+        }
+        for (int i = 0; i < numbers.size(); i++) {
+            key[cells.size() + i * 2] = numbers.get(i);
+            key[cells.size() + i * 2 + 1] = minesLeft(numbers.get(i));
+        }
+        return new Key(key, cells.size());
+    }
+
+    // Mines still to find around a number, flags and uncovered mines count as found
+    private int minesLeft(int index) {
+        int state = board.getPlayer(index);
+        int left = state == PackedBoard.BLANK ? 0 : state;
+        int row = index / cols;
+        int col = index % cols;
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                int around = board.getPlayer(r * cols + c);
+                if (around == PackedBoard.FLAGGED || around == PackedBoard.MINE) {
+                    left--;
+                }
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Combines the components with the cells away from the frontier.
+     * The chance of a cell in component c is
+     *   sum over k of (solutions of c with k mines and the cell a mine) * R(k)
+     *   / sum over k of (solutions of c with k mines) * R(k)
+     * where R(k) counts the ways the other components and the free cells can hold the other mines.
+     *
+     * The components are the leaves of a balanced tree. Going up, every node gets the product of the mine count
+     * distributions below it. Going down, every node gets R for its own mine count: the weight of its parent
+     * summed over the mine counts of its sibling. A distribution only covers the mine counts its components
+     * can really hold, from the sum of their smallest counts, so the work grows with the spread of the mine counts
+     * rather than with the number of frontier cells. Any scale applied to a product or a weight cancels out,
+     * so they are rescaled freely to avoid overflow.
+     */
+    private Hints combine(List<Component> components) {
+        int minesLeft = totalMines - board.getFlagCount() - board.getRevealedMineCount();
+        int hiddenCells = board.getHiddenSafeCount() + (totalMines - board.getRevealedMineCount()) - board.getFlagCount();
+        int frontierCells = 0;
+        int leastMines = 0; // The fewest mines the frontier can hold, where every product starts
+        for (Component component : components) {
+            frontierCells += component.cellCount();
+            leastMines += component.leastMines;
+        }
+        int freeCells = hiddenCells - frontierCells;
+        double[] ways = binomialWeights(freeCells, minesLeft); // ways[m] is proportional to C(freeCells, m)
+
+        Hints hints = new Hints(cols, frontierCells);
+        int count = components.size();
+        double[][] products = new double[Math.max(4 * count, 1)][];
+        double[] all = {1};
+        if (count > 0) {
+            all = multiply(components, products, 1, 0, count);
+            double[] weight = new double[all.length]; // R for every mine count of the whole frontier
+            for (int t = 0; t < weight.length; t++) {
+                int free = minesLeft - leastMines - t;
+                weight[t] = free >= 0 && free < ways.length ? ways[free] : 0;
+            }
+            distribute(components, products, 1, 0, count, weight, hints);
+        }
+        if (freeCells > 0) {
+            double sum = 0;
+            double expected = 0;
+            for (int t = 0; t < all.length; t++) {
+                int free = minesLeft - leastMines - t;
+                if (free >= 0 && free < ways.length) {
+                    sum += all[t] * ways[free];
+                    expected += all[t] * ways[free] * free;
+                }
+            }
+            hints.otherChance = sum > 0 ? expected / sum / freeCells : 0;
+        }
+        return hints;
+    }
+
+    /**
+     * Works out the product of the distributions of a range of components and keeps it for its node of the tree.
+     * The children of node n are nodes 2n and 2n + 1.
+     * @return the product, entry t counting the placements with leastMines + t mines
+     */
+    private static double[] multiply(List<Component> components, double[][] products, int node, int from, int to) {
+        double[] product;
+        if (to - from == 1) {
+            product = components.get(from).solutions;
+        } else {
+            int middle = (from + to) >>> 1;
+            product = convolve(multiply(components, products, 2 * node, from, middle),
+                multiply(components, products, 2 * node + 1, middle, to));
+        }
+        products[node] = product;
+        return product;
+    }
+
+    /**
+     * Hands the weights of a node down to its children, each child summing them over the mine counts of the other.
+     * @param weight R for every mine count of the node, as many entries as its product
+     */
+    private void distribute(List<Component> components, double[][] products, int node, int from, int to,
+                            double[] weight, Hints hints) {
+        if (to - from == 1) {
+            addChances(components.get(from), weight, hints);
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        distribute(components, products, 2 * node, from, middle, correlate(weight, products[2 * node + 1]), hints);
+        distribute(components, products, 2 * node + 1, middle, to, correlate(weight, products[2 * node]), hints);
+    }
+
+    // Works out the chances of the cells of one component, given R for each of its mine counts
+    private void addChances(Component component, double[] weight, Hints hints) {
+        double total = dot(component.solutions, weight);
+        int cells = component.cellCount();
+        double[] chances = new double[cells];
+        for (int k = 0; k < weight.length; k++) {
+            double[] mines = component.mineSolutions[k];
+            if (mines != null && weight[k] != 0) {
+                for (int j = 0; j < cells; j++) {
+                    chances[j] += mines[j] * weight[k];
+                }
+            }
+        }
+        for (int j = 0; j < cells; j++) {
+            hints.add(component.key.values[j], component.exact && total > 0 ? chances[j] / total : component.fallback()[j]);
+        }
+        hints.exact &= component.exact;
+    }
+
+    // Multiplies two mine count distributions and rescales the result to a maximum of 1
+    private static double[] convolve(double[] a, double[] b) {
+        double[] result = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == 0) {
+                continue;
+            }
+            for (int j = 0; j < b.length; j++) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+        return rescale(result);
+    }
+
+    /**
+     * Sums the weights of a node over the mine counts of one child, giving the weights of the other child:
+     * result[i] is the sum over j of sibling[j] * weight[i + j]. It is rescaled to a maximum of 1.
+     */
+    private static double[] correlate(double[] weight, double[] sibling) {
+        double[] result = new double[weight.length - sibling.length + 1];
+        for (int i = 0; i < result.length; i++) {
+            double sum = 0;
+            for (int j = 0; j < sibling.length; j++) {
+                sum += sibling[j] * weight[i + j];
+            }
+            result[i] = sum;
+        }
+        return rescale(result);
+    }
+
+    private static double[] rescale(double[] values) {
+        double max = 0;
+        for (double value : values) {
+            max = Math.max(max, value);
+        }
+        if (max > 0) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] /= max;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Gives numbers proportional to C(cells, m) for m from 0 to mines.
+     * They are built in logarithms from C(n, m + 1) / C(n, m) = (n - m) / (m + 1), then rescaled to a maximum of 1.
+     */
+    private static double[] binomialWeights(int cells, int mines) {
+        int top = Math.max(Math.min(cells, mines), -1);
+        double[] logs = new double[top + 1];
+        double max = 0;
+        for (int m = 1; m <= top; m++) {
+            logs[m] = logs[m - 1] + Math.log((double) (cells - m + 1) / m);
+            max = Math.max(max, logs[m]);
+        }
+        double[] weights = new double[top + 1];
+        for (int m = 0; m <= top; m++) {
+            weights[m] = Math.exp(logs[m] - max);
+        }
+        return weights;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * The identity of a component: its cells followed by each number and the mines it still needs.
+     */
+    private static final class Key {
+        private final int[] values;
+        private final int cellCount;
+        private final int hash;
+
+        Key(int[] values, int cellCount) {
+            this.values = values;
+            this.cellCount = cellCount;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && Arrays.equals(values, ((Key) other).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * One component of the frontier and the result of its enumeration.
+     * The counts only cover the mine counts that have solutions, from leastMines up.
+     */
+    private final class Component {
+        private final Key key;
+        private int leastMines; // The fewest mines in a solution
+        private double[] solutions; // solutions[k]: solutions with leastMines + k mines
+        private double[][] mineSolutions; // mineSolutions[k][cell]: those solutions where the cell is a mine, null if none
+        private double[] fallback; // Rough chances, only made if the enumeration was too big or nothing fits
+        private boolean exact = true;
+        private boolean dropped; // Taken apart by the last call to getHints
+
+        Component(Key key) {
+            this.key = key;
+        }
+
+        int cellCount() {
+            return key.cellCount;
+        }
+
+        /**
+         * Counts every way to place mines in the component that agrees with all its numbers.
+         * The cells are given a value one after the other with backtracking, on an explicit stack:
+         * next[cell] is the value to try next (0 free, 1 mine, 2 both tried) and a cell that was given a value
+         * is taken back before the next value is tried. The counts of a mine count are only made once
+         * a solution with that many mines is found.
+         */
+        void enumerate() {
+            int cells = key.cellCount;
+            int numbers = (key.values.length - cells) / 2;
+            Map<Integer, Integer> localCell = new HashMap<>();
+            for (int i = 0; i < cells; i++) {
+                localCell.put(key.values[i], i);
+            }
+            List<List<Integer>> perCell = new ArrayList<>();
+            for (int i = 0; i < cells; i++) {
+                perCell.add(new ArrayList<>());
+            }
+            int[] need = new int[numbers]; // Mines each number still needs
+            int[] open = new int[numbers]; // Cells without a value yet around each number
+            for (int j = 0; j < numbers; j++) {
+                int number = key.values[cells + j * 2];
+                need[j] = key.values[cells + j * 2 + 1];
+                int row = number / cols;
+                int col = number % cols;
+                for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+                    for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                        Integer local = localCell.get(r * cols + c);
+                        if (local != null) {
+                            perCell.get(local).add(j);
+                            open[j]++;
+                        }
+                    }
+                }
+            }
+            int[][] cellNumbers = new int[cells][]; // For every cell, the numbers around it
+            for (int i = 0; i < cells; i++) {
+                cellNumbers[i] = perCell.get(i).stream().mapToInt(Integer::intValue).toArray();
+            }
+            double[] counts = new double[cells + 1]; // Solutions for every mine count
+            double[][] mineCounts = new double[cells + 1][]; // Made when the first solution with that count is found
+            boolean[] mine = new boolean[cells]; // Current value of every cell
+            boolean[] placed = new boolean[cells]; // Whether the cell has a value at the moment
+            int[] next = new int[cells];
+            long nodes = 0;
+            int cell = 0;
+            int mines = 0;
+            while (cell >= 0) {
+                if (cell == cells) {
+                    counts[mines]++;
+                    if (mineCounts[mines] == null) {
+                        mineCounts[mines] = new double[cells];
+                    }
+                    for (int i = 0; i < cells; i++) {
+                        if (mine[i]) {
+                            mineCounts[mines][i]++;
+                        }
+                    }
+                    cell--;
+                    continue;
+                }
+                if (placed[cell]) {
+                    int value = mine[cell] ? 1 : 0;
+                    takeBack(cellNumbers[cell], value, need, open);
+                    mines -= value;
+                    mine[cell] = false;
+                    placed[cell] = false;
+                }
+                int value = next[cell];
+                if (value == 2) {
+                    next[cell] = 0;
+                    cell--;
+                    continue;
+                }
+                next[cell] = value + 1;
+                if (++nodes > MAX_NODES) {
+                    break;
+                }
+                if (give(cellNumbers[cell], value, need, open)) {
+                    placed[cell] = true;
+                    mine[cell] = value == 1;
+                    mines += value;
+                    cell++;
+                } else {
+                    takeBack(cellNumbers[cell], value, need, open);
+                }
+            }
+            fallback = null;
+            if (nodes > MAX_NODES) {
+                // The partial counts would be wrong, the rough chances are used instead and the component
+                // is taken to hold the number of mines they add up to
+                exact = false;
+                double expected = 0;
+                for (double chance : fallback()) {
+                    expected += chance;
+                }
+                leastMines = (int) Math.round(expected);
+                solutions = new double[] {1};
+                mineSolutions = new double[1][];
+            } else {
+                int least = 0;
+                while (least < cells && counts[least] == 0) {
+                    least++;
+                }
+                int most = cells;
+                while (most > least && counts[most] == 0) {
+                    most--;
+                }
+                leastMines = least;
+                solutions = Arrays.copyOfRange(counts, least, most + 1);
+                mineSolutions = Arrays.copyOfRange(mineCounts, least, most + 1);
+            }
+        }
+
+        /**
+         * Works out rough chances: every cell takes the largest share of mines needed by a number around it.
+         * Every number is looked at once, so this costs little even for a large component.
+         * @return the chances, kept for the next calls
+         */
+        double[] fallback() {
+            if (fallback != null) {
+                return fallback;
+            }
+            int cells = key.cellCount;
+            int numbers = (key.values.length - cells) / 2;
+            Map<Integer, Integer> localCell = new HashMap<>();
+            for (int i = 0; i < cells; i++) {
+                localCell.put(key.values[i], i);
+            }
+            double[] rough = new double[cells];
+            int[] around = new int[9]; // The cells of the component around one number
+            for (int j = 0; j < numbers; j++) {
+                int number = key.values[cells + j * 2];
+                int row = number / cols;
+                int col = number % cols;
+                int size = 0;
+                for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+                    for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                        Integer local = localCell.get(r * cols + c);
+                        if (local != null) {
+                            around[size++] = local;
+                        }
+                    }
+                }
+                double share = (double) key.values[cells + j * 2 + 1] / size;
+                for (int k = 0; k < size; k++) {
+                    rough[around[k]] = Math.max(rough[around[k]], share);
+                }
+            }
+            fallback = rough;
+            return rough;
+        }
+
+        // Gives a value to a cell, returns false if one of its numbers can no longer be satisfied
+        private boolean give(int[] numbers, int value, int[] need, int[] open) {
+            boolean fits = true;
+            for (int j : numbers) {
+                open[j]--;
+                need[j] -= value;
+                fits &= need[j] >= 0 && need[j] <= open[j];
+            }
+            return fits;
+        }
+
+        // Takes back the value given to a cell
+        private void takeBack(int[] numbers, int value, int[] need, int[] open) {
+            for (int j : numbers) {
+                open[j]++;
+                need[j] += value;
+            }
+        }
+    }
+
+    /**
+     * The chance of a mine for every frontier cell.
+     */
+    public static class Hints {
+        private final int cols;
+        private final int[] cells;
+        private final double[] chances;
+        private int size;
+        private double otherChance;
+        private boolean exact = true;
+
+        Hints(int cols, int capacity) {
+            this.cols = cols;
+            this.cells = new int[capacity];
+            this.chances = new double[capacity];
+        }
+
+        // Adds the chance of one cell
+        void add(int cell, double chance) {
+            cells[size] = cell;
+            chances[size++] = chance;
+        }
+
+        /**
+         * @return the number of frontier cells
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @param i the position in the list
+         * @return the row of the cell
+         */
+        public int getRow(int i) {
+            return cells[i] / cols;
+        }
+
+        /**
+         * @param i the position in the list
+         * @return the column of the cell
+         */
+        public int getCol(int i) {
+            return cells[i] % cols;
+        }
+
+        /**
+         * @param i the position in the list
+         * @return the chance of a mine under the cell, between 0 and 1
+         */
+        public double getProbability(int i) {
+            return chances[i];
+        }
+
+        /**
+         * @return the chance of a mine under any hidden cell that is not on the frontier
+         */
+        public double getOtherProbability() {
+            return otherChance;
+        }
+
+        /**
+         * @return false if a component was too big to enumerate and rough chances were used for it
+         */
+        public boolean isExact() {
+            return exact;
+        }
+    }
+}
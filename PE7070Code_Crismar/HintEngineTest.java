@@ -0,0 +1,140 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The test class HintEngineTest is used to test the functionality of HintEngine class.
+ * It compares the chances with a brute force count over every way to place the mines.
+ *
+ * @version 1.0
+ */
+public class HintEngineTest {
+
+    @Test
+    //Tests the chances against every placement of the mines that agrees with the uncovered numbers
+    public void testMatchesBruteForce() {
+        for (long seed = 0; seed < 15; seed++) {
+            Minesweeper game = new Minesweeper(4, 5, 5, seed);
+            PackedBoard board = game.getBoard();
+            int start = Solver.findOpening(board);
+            if (start < 0) {
+                continue;
+            }
+            game.makeMove(Integer.toString(start / 5), Integer.toString(start % 5), "G");
+            if (game.checkWin().equals("won")) {
+                continue;
+            }
+            HintEngine.Hints hints = game.getHints();
+            double[] expected = bruteForce(board, 5);
+            for (int i = 0; i < hints.size(); i++) {
+                int index = board.index(hints.getRow(i), hints.getCol(i));
+                assertEquals(expected[index], hints.getProbability(i), 1e-9);
+            }
+            assertTrue(hints.isExact());
+        }
+    }
+
+    @Test
+    //Tests that the hints follow the moves made after the first call
+    public void testFollowsMoves() {
+        Minesweeper game = new Minesweeper(16, 16, 40, 11);
+        PackedBoard board = game.getBoard();
+        int start = Solver.findOpening(board);
+        game.makeMove(Integer.toString(start / 16), Integer.toString(start % 16), "G");
+        HintEngine.Hints first = game.getHints();
+        assertTrue(first.size() > 0);
+        // Uncover the safest frontier cell and check the new hints against a fresh engine
+        int best = 0;
+        for (int i = 1; i < first.size(); i++) {
+            if (first.getProbability(i) < first.getProbability(best)) {
+                best = i;
+            }
+        }
+        game.makeMove(Integer.toString(first.getRow(best)), Integer.toString(first.getCol(best)), "G");
+        HintEngine.Hints updated = game.getHints();
+        HintEngine.Hints fresh = new HintEngine(board).getHints();
+        assertEquals(fresh.size(), updated.size());
+        for (int i = 0; i < updated.size(); i++) {
+            assertEquals(fresh.getProbability(i), updated.getProbability(i), 1e-9);
+        }
+    }
+
+    @Test
+    //Tests that the hints kept up to date through guesses, flags and undos match a fresh engine after every move
+    public void testIncrementalMatchesFresh() {
+        Minesweeper game = new Minesweeper(30, 30, 120, 4);
+        PackedBoard board = game.getBoard();
+        int start = Solver.findOpening(board);
+        game.makeMove(start / 30, start % 30, MoveAction.GUESS);
+        for (int step = 0; step < 40 && game.checkWin().equals("continue"); step++) {
+            HintEngine.Hints hints = game.getHints();
+            HintEngine.Hints fresh = new HintEngine(board).getHints();
+            assertEquals(fresh.size(), hints.size());
+            for (int i = 0; i < hints.size(); i++) {
+                assertEquals(fresh.getRow(i), hints.getRow(i));
+                assertEquals(fresh.getCol(i), hints.getCol(i));
+                assertEquals(fresh.getProbability(i), hints.getProbability(i), 1e-9);
+            }
+            if (hints.size() == 0) {
+                break;
+            }
+            int safest = 0;
+            int riskiest = 0;
+            for (int i = 1; i < hints.size(); i++) {
+                safest = hints.getProbability(i) < hints.getProbability(safest) ? i : safest;
+                riskiest = hints.getProbability(i) > hints.getProbability(riskiest) ? i : riskiest;
+            }
+            if (step % 5 == 4) {
+                game.undo();
+            } else if (step % 3 == 2) {
+                game.makeMove(hints.getRow(riskiest), hints.getCol(riskiest), MoveAction.FLAG);
+            } else {
+                game.makeMove(hints.getRow(safest), hints.getCol(safest), MoveAction.GUESS);
+            }
+        }
+    }
+
+    // Tries every placement of the right number of mines in the hidden cells and counts how often each cell is a mine
+    private double[] bruteForce(PackedBoard board, int mines) {
+        int size = board.size();
+        double[] mineCount = new double[size];
+        double total = 0;
+        for (int mask = 0; mask < 1 << size; mask++) {
+            if (Integer.bitCount(mask) != mines || !agrees(board, mask)) {
+                continue;
+            }
+            total++;
+            for (int i = 0; i < size; i++) {
+                mineCount[i] += mask >> i & 1;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            mineCount[i] /= total;
+        }
+        return mineCount;
+    }
+
+    // Checks a placement against what the player can see
+    private boolean agrees(PackedBoard board, int mask) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        for (int i = 0; i < board.size(); i++) {
+            int state = board.getPlayer(i);
+            if (state == PackedBoard.HIDDEN) {
+                continue;
+            }
+            if ((mask >> i & 1) != 0) {
+                return false; // An uncovered cell cannot be a mine
+            }
+            int around = 0;
+            for (int r = Math.max(i / cols - 1, 0); r <= Math.min(i / cols + 1, rows - 1); r++) {
+                for (int c = Math.max(i % cols - 1, 0); c <= Math.min(i % cols + 1, cols - 1); c++) {
+                    around += mask >> (r * cols + c) & 1;
+                }
+            }
+            if (around != (state == PackedBoard.BLANK ? 0 : state)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.SplittableRandom;
+
+/**
+ * This player plays like a careful human with the hints turned on: it flags the cells that are
+ * certainly mines, and otherwise uncovers the cell with the lowest chance of a mine.
+ * Working out the hints costs much more than a move, so it is meant for boards of a normal size.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class HintStrategy implements PlayerStrategy {
+    private final SplittableRandom random;
+
+    /**
+     * Creates the player.
+     * @param seed the seed used to choose between cells with the same chance
+     */
+    public HintStrategy(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public long nextMove(Minesweeper game) {
+        PackedBoard board = game.getBoard();
+        HintEngine.Hints hints = game.getHints();
+        int best = -1;
+        double bestChance = 2;
+        for (int i = 0; i < hints.size(); i++) {
+            int cell = board.index(hints.getRow(i), hints.getCol(i));
+            double chance = hints.getProbability(i);
+            if (chance >= 1) {
+                return PlayerStrategy.move(cell, MoveAction.FLAG); // Flagged cells leave the frontier
+            }
+            if (chance < bestChance) {
+                best = cell;
+                bestChance = chance;
+            }
+        }
+        if (best >= 0 && bestChance <= hints.getOtherProbability()) {
+            return PlayerStrategy.move(best, MoveAction.GUESS);
+        }
+        // No frontier yet, or a cell away from it is safer: any hidden cell away from the frontier will do
+        for (int tries = 0; tries < 64; tries++) {
+            int cell = RandomStrategy.randomHiddenCell(board, random);
+            if (cell < 0) {
+                break;
+            }
+            if (!nextToNumber(board, cell)) {
+                return PlayerStrategy.move(cell, MoveAction.GUESS);
+            }
+        }
+        return best >= 0 ? PlayerStrategy.move(best, MoveAction.GUESS) : NO_MOVE;
+    }
+
+    // Checks if a cell touches an uncovered number, which puts it on the frontier
+    private static boolean nextToNumber(PackedBoard board, int index) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        int row = index / cols;
+        int col = index % cols;
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                int state = board.getPlayer(r * cols + c);
+                if (state <= 8) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,435 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.Set;
+
+/**
+ * This class is the board of the endless mode, a board with no edges.
+ * It is split into chunks of CHUNK_SIZE x CHUNK_SIZE cells kept in a map by chunk position.
+ * A chunk is only generated from the seed the first time one of its cells is used,
+ * so the memory grows with the area the player explores and not with a board size.
+ *
+ * Chunks that were never changed can be thrown away and generated again when needed.
+ * Once every safe cell of a chunk has been uncovered, the chunk is written to the spill folder
+ * and removed from memory when there are more than maxResident chunks in memory.
+ * Chunks the player is still working on always stay in memory. A spill file is deleted once it has been read back.
+ * The mines of the last MINE_CACHE chunks are kept, as every chunk that is generated needs those of its eight neighbours.
+ *
+ * A reveal uncovers at most MAX_CASCADE cells. The empty cells whose neighbours are still to be opened
+ * are kept as a frontier and the next reveal goes on from them, or continueCascade can be called until
+ * hasPendingCascade is false. Rows and columns go from MIN_COORDINATE to MAX_COORDINATE, the cells past
+ * them are the edge of the board.
+ *
+ * This class is the board of the endless mode only, the Minesweeper engine, the GUI and the UI do not use it yet.
+ *
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class InfiniteBoard {
+    public static final int CHUNK_SIZE = 64; // Rows and columns in a chunk
+    private static final int CHUNK_SHIFT = 6; // log2 of CHUNK_SIZE
+    private static final int MAX_CASCADE = 1 << 20; // Most cells a single reveal can uncover
+    public static final long MAX_COORDINATE = (1L << 37) - 1; // Largest row or column, its chunk still fits in an int
+    public static final long MIN_COORDINATE = -(1L << 37); // Smallest row or column
+    private static final int MINE_CACHE = 256; // Chunks whose mines are kept, 512 bytes each
+
+    private final long seed; // Seed of the whole board
+    private final double density; // Chance of a cell holding a mine
+    private final int maxResident; // Chunks kept in memory before cold ones are evicted
+    private final Path spillFolder; // Where resolved chunks are written when evicted
+    private final LinkedHashMap<Long, Chunk> chunks; // Chunks in memory, least recently used first
+    private final Set<Long> spilled; // Chunks that are on disk and not in memory
+    private final LinkedHashMap<Long, long[]> mineCache; // The mines of recently used chunks, least recently used first
+    private long[] queue; // Empty cells whose neighbours are still to be opened, as row and column pairs
+    private int queueHead; // The first waiting cell in the queue
+    private int queueTail; // The end of the waiting cells in the queue
+    private int lives = 3; // Lives left, the same as in the normal game
+
+    /**
+     * Creates a new endless board.
+     * @param seed the seed of the board
+     * @param density the chance of a cell holding a mine, between 0 and 1
+     * @param maxResident the number of chunks kept in memory before cold ones are evicted
+     * @param spillFolder the folder where resolved chunks are written
+     */
+    public InfiniteBoard(long seed, double density, int maxResident, Path spillFolder) {
+        if (density < 0 || density >= 1) {
+            throw new IllegalArgumentException("Invalid mine density: " + density);
+        }
+        this.seed = seed;
+        this.density = density;
+        this.maxResident = maxResident;
+        this.spillFolder = spillFolder;
+        this.chunks = new LinkedHashMap<>(16, 0.75f, true);
+        this.spilled = new HashSet<>();
+        this.mineCache = new LinkedHashMap<>(16, 0.75f, true);
+        this.queue = new long[256];
+    }
+
+    /**
+     * Gets what the player sees in a cell.
+     * @param row the row of the cell, from MIN_COORDINATE to MAX_COORDINATE
+     * @param col the column of the cell, from MIN_COORDINATE to MAX_COORDINATE
+     * @return the state of the cell, as in Minesweeper.getCellState
+     */
+    public String getCellState(long row, long col) {
+        checkCell(row, col);
+        return PackedBoard.toText(chunkAt(row, col).cells.getPlayer(cellIndex(row, col)));
+    }
+
+    /**
+     * Flags a hidden cell or removes the flag of a flagged cell.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return true if the cell is flagged after the call
+     */
+    public boolean toggleFlag(long row, long col) {
+        checkCell(row, col);
+        Chunk chunk = chunkAt(row, col);
+        int index = cellIndex(row, col);
+        int state = chunk.cells.getPlayer(index);
+        if (state == PackedBoard.HIDDEN || state == PackedBoard.FLAGGED) {
+            chunk.cells.setPlayer(index, state == PackedBoard.HIDDEN ? PackedBoard.FLAGGED : PackedBoard.HIDDEN);
+            chunk.touched = true;
+        }
+        evictColdChunks();
+        return chunk.cells.getPlayer(index) == PackedBoard.FLAGGED;
+    }
+
+    /**
+     * Uncovers a cell, and the empty area around it if the cell is empty.
+     * An area left unfinished by an earlier reveal is carried on as well, within the same limit.
+     * Guessing a mine costs a life.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the number of cells uncovered, or -1 if the cell was a mine
+     */
+    public int reveal(long row, long col) {
+        checkCell(row, col);
+        Chunk chunk = chunkAt(row, col);
+        int index = cellIndex(row, col);
+        int state = chunk.cells.getPlayer(index);
+        if (state == PackedBoard.FLAGGED) {
+            return 0;
+        }
+        if (state != PackedBoard.HIDDEN) {
+            return continueCascade(); // Already uncovered, the area around it may still be opening
+        }
+        if (chunk.cells.isMine(index)) {
+            chunk.cells.setPlayer(index, PackedBoard.MINE);
+            chunk.touched = true;
+            lives--;
+            evictColdChunks();
+            return -1;
+        }
+        uncover(row, col);
+        if (isEmpty(row, col)) {
+            enqueue(row, col);
+        }
+        int revealed = 1 + cascade(MAX_CASCADE - 1);
+        evictColdChunks();
+        return revealed;
+    }
+
+    /**
+     * Goes on opening the empty area left unfinished by the last reveal, up to MAX_CASCADE cells.
+     * @return the number of cells uncovered
+     */
+    public int continueCascade() {
+        int revealed = cascade(MAX_CASCADE);
+        evictColdChunks();
+        return revealed;
+    }
+
+    /**
+     * @return true if a reveal stopped at its limit and left empty cells whose neighbours are still hidden
+     */
+    public boolean hasPendingCascade() {
+        return queueHead < queueTail;
+    }
+
+    /**
+     * Opens the neighbours of the empty cells in the queue, adding the empty cells it uncovers.
+     * Every cell is uncovered when it is put in the queue, which also stops it from being queued twice,
+     * so no set of visited cells is needed. The cells still waiting at the limit stay in the queue.
+     * @param limit the most cells to uncover
+     * @return the number of cells uncovered
+     */
+    private int cascade(int limit) {
+        int revealed = 0;
+        while (queueHead < queueTail && revealed < limit) {
+            long r = queue[queueHead++];
+            long c = queue[queueHead++];
+            for (long i = Math.max(r - 1, MIN_COORDINATE); i <= Math.min(r + 1, MAX_COORDINATE); i++) {
+                for (long j = Math.max(c - 1, MIN_COORDINATE); j <= Math.min(c + 1, MAX_COORDINATE); j++) {
+                    Chunk chunk = chunkAt(i, j);
+                    int index = cellIndex(i, j);
+                    if (chunk.cells.getPlayer(index) != PackedBoard.HIDDEN || chunk.cells.isMine(index)) {
+                        continue;
+                    }
+                    uncover(i, j);
+                    revealed++;
+                    if (isEmpty(i, j)) {
+                        enqueue(i, j);
+                    }
+                }
+            }
+        }
+        if (queueHead == queueTail) {
+            queueHead = 0;
+            queueTail = 0;
+        }
+        return revealed;
+    }
+
+    // Adds an empty cell to the queue, making room for it first if needed
+    private void enqueue(long row, long col) {
+        if (queueTail + 2 > queue.length) {
+            compactQueue();
+        }
+        queue[queueTail++] = row;
+        queue[queueTail++] = col;
+    }
+
+    // Moves the waiting cells to the start of the queue, and makes it bigger if it is still too full
+    private void compactQueue() {
+        long[] target = queueTail - queueHead + 2 > queue.length / 2 ? new long[queue.length * 2] : queue;
+        System.arraycopy(queue, queueHead, target, 0, queueTail - queueHead);
+        queue = target;
+        queueTail -= queueHead;
+        queueHead = 0;
+    }
+
+    // Refuses a cell past the edge of the board, whose chunk would not fit in an int
+    private static void checkCell(long row, long col) {
+        if (row < MIN_COORDINATE || row > MAX_COORDINATE || col < MIN_COORDINATE || col > MAX_COORDINATE) {
+            throw new IllegalArgumentException("Cell outside the board: " + row + ", " + col);
+        }
+    }
+
+    // Shows the solution of a cell to the player
+    private void uncover(long row, long col) {
+        Chunk chunk = chunkAt(row, col);
+        int index = cellIndex(row, col);
+        chunk.cells.setPlayer(index, chunk.cells.getSolution(index));
+        chunk.touched = true;
+    }
+
+    // Checks if a cell has no mines around it
+    private boolean isEmpty(long row, long col) {
+        int code = chunkAt(row, col).cells.getSolution(cellIndex(row, col));
+        return code == 0 || code == PackedBoard.BLANK;
+    }
+
+    /**
+     * @return the number of lives left
+     */
+    public int getLives() {
+        return lives;
+    }
+
+    /**
+     * @return the number of chunks in memory
+     */
+    public int getResidentChunks() {
+        return chunks.size();
+    }
+
+    /**
+     * @return the number of chunks written to the spill folder
+     */
+    public int getSpilledChunks() {
+        return spilled.size();
+    }
+
+    /**
+     * Finds the chunk that holds a cell, loading it from disk or generating it if needed.
+     */
+    private Chunk chunkAt(long row, long col) {
+        int chunkRow = (int) (row >> CHUNK_SHIFT);
+        int chunkCol = (int) (col >> CHUNK_SHIFT);
+        long key = key(chunkRow, chunkCol);
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = new Chunk(chunkRow, chunkCol, generate(chunkRow, chunkCol));
+            if (spilled.contains(key)) {
+                readSpilled(chunk); // If it fails the chunk stays spilled, so no progress is lost
+                spilled.remove(key);
+            }
+            chunks.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    // Position of a cell inside its chunk
+    private static int cellIndex(long row, long col) {
+        return (int) (row & (CHUNK_SIZE - 1)) << CHUNK_SHIFT | (int) (col & (CHUNK_SIZE - 1));
+    }
+
+    // Key of a chunk in the map
+    private static long key(int chunkRow, int chunkCol) {
+        return (long) chunkRow << 32 | (chunkCol & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Removes chunks from memory, least recently used first, until there are at most maxResident of them.
+     * Chunks never changed by the player are dropped, resolved chunks are written to disk,
+     * and chunks still being played are kept.
+     */
+    private void evictColdChunks() {
+        Iterator<Map.Entry<Long, Chunk>> entries = chunks.entrySet().iterator();
+        while (chunks.size() > maxResident && entries.hasNext()) {
+            Map.Entry<Long, Chunk> entry = entries.next();
+            Chunk chunk = entry.getValue();
+            if (!chunk.touched) {
+                entries.remove(); // It can be generated again from the seed
+            } else if (chunk.cells.getHiddenSafeCount() == 0) {
+                writeSpilled(chunk);
+                spilled.add(entry.getKey());
+                entries.remove();
+            }
+        }
+    }
+
+    /**
+     * Generates the solution of a chunk from the seed.
+     * The mines of the eight chunks around it are worked out as well (without building them)
+     * so the numbers on the edges of the chunk are right.
+     */
+    private PackedBoard generate(int chunkRow, int chunkCol) {
+        long[] mines = new long[3 * CHUNK_SIZE * 3]; // Mine bits of the 3x3 chunks, 3 longs for each row of cells
+        for (int dr = 0; dr < 3; dr++) {
+            for (int dc = 0; dc < 3; dc++) {
+                long[] rows = mineRows((long) chunkRow + dr - 1, (long) chunkCol + dc - 1);
+                for (int r = 0; r < CHUNK_SIZE; r++) {
+                    mines[(dr * CHUNK_SIZE + r) * 3 + dc] = rows[r];
+                }
+            }
+        }
+        PackedBoard cells = new PackedBoard(CHUNK_SIZE, CHUNK_SIZE);
+        for (int r = 0; r < CHUNK_SIZE; r++) {
+            for (int c = 0; c < CHUNK_SIZE; c++) {
+                int index = r << CHUNK_SHIFT | c;
+                if (isMineBit(mines, r + CHUNK_SIZE, c + CHUNK_SIZE)) {
+                    cells.setSolution(index, PackedBoard.MINE);
+                    continue;
+                }
+                int count = 0;
+                for (int i = r + CHUNK_SIZE - 1; i <= r + CHUNK_SIZE + 1; i++) {
+                    for (int j = c + CHUNK_SIZE - 1; j <= c + CHUNK_SIZE + 1; j++) {
+                        count += isMineBit(mines, i, j) ? 1 : 0;
+                    }
+                }
+                cells.setSolution(index, count == 0 ? PackedBoard.BLANK : count);
+            }
+        }
+        return cells;
+    }
+
+    // Reads one bit of the 3x3 chunk mine grid
+    private static boolean isMineBit(long[] mines, int row, int col) {
+        return (mines[row * 3 + (col >> CHUNK_SHIFT)] >>> (col & (CHUNK_SIZE - 1)) & 1) != 0;
+    }
+
+    /**
+     * Gives the mines of one chunk, one long of bits per row, always the same for the same chunk.
+     * They are taken from the cache when they were worked out recently.
+     * The rows must not be changed, they may be shared with the next calls.
+     */
+    private long[] mineRows(long chunkRow, long chunkCol) {
+        if (chunkRow != (int) chunkRow || chunkCol != (int) chunkCol) {
+            return new long[CHUNK_SIZE]; // Past the edge of the board, there are no mines there
+        }
+        long key = key((int) chunkRow, (int) chunkCol);
+        long[] rows = mineCache.get(key);
+        if (rows == null) {
+            rows = placeMines(chunkRow, chunkCol);
+            mineCache.put(key, rows);
+            if (mineCache.size() > MINE_CACHE) {
+                Iterator<Long> oldest = mineCache.keySet().iterator();
+                oldest.next();
+                oldest.remove();
+            }
+        }
+        return rows;
+    }
+
+    // Places the mines of one chunk from the seed, one long of bits per row
+    private long[] placeMines(long chunkRow, long chunkCol) {
+        long[] rows = new long[CHUNK_SIZE];
+        SplittableRandom random = new SplittableRandom(seed ^ key((int) chunkRow, (int) chunkCol) * 0x9E3779B97F4A7C15L);
+        for (int r = 0; r < CHUNK_SIZE; r++) {
+            for (int c = 0; c < CHUNK_SIZE; c++) {
+                if (random.nextDouble() < density) {
+                    rows[r] |= 1L << c;
+                }
+            }
+        }
+        return rows;
+    }
+
+    // Writes what the player sees in a chunk to its spill file, one byte per cell
+    private void writeSpilled(Chunk chunk) {
+        byte[] player = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        for (int i = 0; i < player.length; i++) {
+            player[i] = (byte) chunk.cells.getPlayer(i);
+        }
+        try {
+            Files.createDirectories(spillFolder);
+            Files.write(spillFile(chunk), player);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write chunk " + chunk.row + ", " + chunk.col, e);
+        }
+    }
+
+    // Puts back what the player saw in a chunk read from its spill file, then deletes the file
+    private void readSpilled(Chunk chunk) {
+        Path file = spillFile(chunk);
+        byte[] player;
+        try {
+            player = Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read chunk " + chunk.row + ", " + chunk.col, e);
+        }
+        if (player.length != CHUNK_SIZE * CHUNK_SIZE) {
+            throw new UncheckedIOException(new IOException("The spill file of chunk " + chunk.row + ", " + chunk.col
+                + " has " + player.length + " bytes instead of " + CHUNK_SIZE * CHUNK_SIZE));
+        }
+        for (int i = 0; i < player.length; i++) {
+            chunk.cells.setPlayer(i, player[i]);
+        }
+        chunk.touched = true;
+        try {
+            Files.delete(file);
+        } catch (IOException e) {
+            // Left behind, it is written over if the chunk is spilled again
+        }
+    }
+
+    // The spill file of a chunk
+    private Path spillFile(Chunk chunk) {
+        return spillFolder.resolve("chunk_" + chunk.row + "_" + chunk.col + ".bin");
+    }
+
+    /**
+     * One chunk of the board in memory.
+     */
+    private static class Chunk {
+        private final int row; // Chunk row
+        private final int col; // Chunk column
+        private final PackedBoard cells; // The cells of the chunk
+        private boolean touched; // Whether the player changed any cell of the chunk
+
+        Chunk(int row, int col, PackedBoard cells) {
+            this.row = row;
+            this.col = col;
+            this.cells = cells;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The test class InfiniteBoardTest is used to test the functionality of InfiniteBoard class.
+ * It checks that the board is the same in every run and that evicted chunks come back as they were left.
+ *
+ * @version 1.0
+ */
+public class InfiniteBoardTest {
+    @TempDir
+    Path spillFolder;
+
+    @Test
+    //Tests that two boards with the same seed have the same cells, even far from the start and on negative positions
+    public void testSameSeedSameCells() {
+        InfiniteBoard first = new InfiniteBoard(42, 0.2, 100, spillFolder);
+        InfiniteBoard second = new InfiniteBoard(42, 0.2, 100, spillFolder);
+        long[][] cells = {{0, 0}, {-1, -1}, {63, 64}, {-5000, 12345}, {1L << 30, -(1L << 30)}};
+        for (long[] cell : cells) {
+            assertEquals(first.reveal(cell[0], cell[1]), second.reveal(cell[0], cell[1]));
+            assertEquals(first.getCellState(cell[0], cell[1]), second.getCellState(cell[0], cell[1]));
+        }
+    }
+
+    @Test
+    //Tests that revealing an empty cell opens the area around it and crosses chunk edges
+    public void testCascadeAcrossChunks() {
+        InfiniteBoard board = new InfiniteBoard(7, 0.0, 100, spillFolder);
+        // With no mines the whole area would open, the cascade has to stop at its limit
+        assertTrue(board.reveal(0, 0) > InfiniteBoard.CHUNK_SIZE * InfiniteBoard.CHUNK_SIZE);
+        assertEquals("-", board.getCellState(-1, -1));
+        assertEquals(3, board.getLives());
+    }
+
+    @Test
+    //Tests that resolved chunks are written to disk and read back with the player's moves
+    public void testSpilledChunksComeBack() {
+        InfiniteBoard board = new InfiniteBoard(3, 0.0, 1, spillFolder);
+        board.reveal(10, 10); // Opens many chunks, all of them resolved since there are no mines
+        assertTrue(board.getSpilledChunks() > 0);
+        assertTrue(board.getResidentChunks() < board.getSpilledChunks()); // Only the chunks still being opened stay
+        assertEquals("-", board.getCellState(10, 10));
+        assertEquals("-", board.getCellState(200, 200));
+    }
+
+    @Test
+    //Tests that a spill file that cannot be read keeps the chunk spilled, and that a file read back is deleted
+    public void testSpillFileReadOnce() throws Exception {
+        InfiniteBoard board = new InfiniteBoard(3, 0.0, 1, spillFolder);
+        board.reveal(10, 10);
+        Path file = spillFolder.resolve("chunk_3_3.bin"); // The chunk of cell 200, 200
+        assertTrue(Files.exists(file));
+        int spilled = board.getSpilledChunks();
+        Path moved = Files.move(file, spillFolder.resolve("moved.bin"));
+        assertThrows(UncheckedIOException.class, () -> board.getCellState(200, 200));
+        assertEquals(spilled, board.getSpilledChunks());
+        Files.move(moved, file);
+        assertEquals("-", board.getCellState(200, 200)); // The moves were not lost by the failed read
+        assertEquals(spilled - 1, board.getSpilledChunks());
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    //Tests that flags are kept and cost no lives
+    public void testFlag() {
+        InfiniteBoard board = new InfiniteBoard(5, 0.3, 100, spillFolder);
+        assertTrue(board.toggleFlag(-3, 8));
+        assertEquals("?", board.getCellState(-3, 8));
+        assertEquals(0, board.reveal(-3, 8)); // A flagged cell cannot be guessed
+        assertFalse(board.toggleFlag(-3, 8));
+    }
+
+    @Test
+    //Tests that a reveal stopped at its limit is carried on, so no open empty cell is left next to a hidden one
+    public void testPendingCascade() {
+        InfiniteBoard board = new InfiniteBoard(11, 0.0, 10000, spillFolder);
+        board.reveal(0, 0); // With no mines the area never ends, the reveal stops at its limit
+        assertTrue(board.hasPendingCascade());
+        assertTrue(board.reveal(0, 0) > 0); // Clicking an open cell goes on with the area
+        assertTrue(board.continueCascade() > 0);
+    }
+
+    @Test
+    //Tests that the cells at the edges of the coordinates can be used and the cells past them are refused
+    public void testCoordinateLimits() {
+        InfiniteBoard board = new InfiniteBoard(9, 0.2, 100, spillFolder);
+        board.toggleFlag(InfiniteBoard.MAX_COORDINATE, InfiniteBoard.MIN_COORDINATE);
+        assertEquals("?", board.getCellState(InfiniteBoard.MAX_COORDINATE, InfiniteBoard.MIN_COORDINATE));
+        assertEquals("", board.getCellState(InfiniteBoard.MIN_COORDINATE, InfiniteBoard.MAX_COORDINATE));
+        assertThrows(IllegalArgumentException.class, () -> board.reveal(InfiniteBoard.MAX_COORDINATE + 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> board.getCellState(0, InfiniteBoard.MIN_COORDINATE - 1));
+    }
+}
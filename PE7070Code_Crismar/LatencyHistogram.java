@@ -0,0 +1,122 @@
+import java.util.Arrays;
+
+/**
+ * This class counts how long things take, in nanoseconds, without keeping every value.
+ * Values are put in buckets that grow with the value: every power of two is cut into SUB_BUCKETS
+ * buckets, so a percentile is never more than about 6% away from the real value, and the histogram
+ * always takes the same small amount of memory however many values are recorded.
+ * It is not thread safe, every thread records into its own histogram and they are added together at the end.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS; // Buckets for each power of two
+
+    static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS; // Buckets needed for any long value
+
+    private final long[] counts = new long[BUCKETS];
+    private long total; // Values recorded
+    private long max; // Largest value recorded
+
+    /**
+     * Records one value.
+     * @param nanos the value, negative values count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts[bucket(value)]++;
+        total++;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds every value of another histogram to this one.
+     * @param other the histogram to add
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Adds values already sorted into buckets, for histograms kept by other classes (see GameMetrics).
+     * @param bucketCounts the number of values in every bucket, BUCKETS long
+     * @param largest the largest of the values
+     */
+    void add(long[] bucketCounts, long largest) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += bucketCounts[i];
+            total += bucketCounts[i];
+        }
+        max = Math.max(max, largest);
+    }
+
+    /**
+     * @return the number of values recorded
+     */
+    public long getCount() {
+        return total;
+    }
+
+    /**
+     * @return the largest value recorded
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gives the value below which a share of the values fall.
+     * @param percentile the share, between 0 and 100
+     * @return the top of the bucket that holds the percentile, never more than the largest value
+     */
+    public long getPercentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Forgets every value.
+     */
+    public void clear() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        max = 0;
+    }
+
+    // Small values have a bucket each, larger ones share a bucket with values of the same power of two
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int power = 63 - Long.numberOfLeadingZeros(value); // At least SUB_BITS
+        int sub = (int) (value >>> (power - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (power - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // The largest value that goes into a bucket
+    private static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int power = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        long low = (1L << power) | sub << (power - SUB_BITS);
+        return low + (1L << (power - SUB_BITS)) - 1;
+    }
+}
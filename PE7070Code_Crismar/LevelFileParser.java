@@ -0,0 +1,339 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * This class reads a level file in the format of the Levels/emN.txt files straight into a new board.
+ * The first line holds the size of the square board, then every line holds one cell as "row col state",
+ * the state being a digit from 0 to 8, M for a mine or - for an empty cell. Blank lines are skipped.
+ *
+ * The file is read in blocks through a byte buffer and the numbers are parsed from the bytes themselves,
+ * without making a String per token. Lines written the usual way are read by a fast path straight from the buffer,
+ * so a level of a million cells (about 10MB) is read in tens of milliseconds instead of the second a Scanner took.
+ * A line that does not follow the format is reported with a LevelFormatException giving its line and column.
+ *
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class LevelFileParser {
+    private static final int BUFFER_SIZE = 64 * 1024; // Bytes read from the file at a time
+    private static final int END = -1; // Given by peek at the end of the file
+    private static final int MAX_SIZE = 46340; // Largest square board whose cells still fit in an int
+    private static final int FAST_LINE = 32; // Bytes that hold any line the fast path accepts
+    private static final byte[] STATE_CODES = new byte[256]; // The solution code of each state character, -1 if none
+
+    static {
+        Arrays.fill(STATE_CODES, (byte) -1);
+        for (int digit = 0; digit <= 8; digit++) {
+            STATE_CODES['0' + digit] = (byte) digit;
+        }
+        STATE_CODES['M'] = PackedBoard.MINE;
+        STATE_CODES['-'] = PackedBoard.BLANK;
+    }
+
+    private final String file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] bytes = buffer.array(); // The bytes of the buffer, read directly
+    private int position; // The next byte to look at
+    private int limit; // The number of bytes in the buffer
+    private boolean finished; // The whole file has been read
+    private long base; // Position in the file of the first byte of the buffer
+    private int line = 1; // The line of the next byte
+    private long lineStart; // Position in the file of the first byte of that line
+    private int tokenLine; // Where the last number or state started, for the errors
+    private int tokenColumn;
+
+    private LevelFileParser(String file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+
+    /**
+     * Reads a level file into a new board. The file is closed before returning.
+     * @param file the path of the level file
+     * @return the board with the solution of every cell, every cell hidden
+     * @throws LevelFormatException if a line does not follow the format
+     * @throws IOException if the file cannot be read
+     */
+    public static PackedBoard parse(String file) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            return new LevelFileParser(file, channel).parseBoard();
+        }
+    }
+
+    /**
+     * Reads only the size line of a level file, so the memory of a level can be known before it is read.
+     * The file is closed before returning.
+     * @param file the path of the level file
+     * @return the size of the square board
+     * @throws LevelFormatException if the size line does not follow the format
+     * @throws IOException if the file cannot be read
+     */
+    public static int readSize(String file) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            return new LevelFileParser(file, channel).readSizeLine();
+        }
+    }
+
+    /**
+     * Reads the size line and then every cell line.
+     * The solutions are written without updating the counters of the board, which are worked out once at the end.
+     * @return the board
+     */
+    private PackedBoard parseBoard() throws IOException {
+        int size = readSizeLine();
+        PackedBoard board = new PackedBoard(size, size);
+        while (true) {
+            if (readCellFast(board, size)) {
+                continue;
+            }
+            if (!skipBlankLines()) {
+                break;
+            }
+            int row = readNumber("a row");
+            if (row >= size) {
+                throw error(tokenLine, tokenColumn, "row " + row + " is outside the board of size " + size);
+            }
+            int col = readNumber("a column");
+            if (col >= size) {
+                throw error(tokenLine, tokenColumn, "column " + col + " is outside the board of size " + size);
+            }
+            int code = readState();
+            endLine();
+            board.writeSolution(row * size + col, code); // A cell given twice keeps its last state
+        }
+        board.recount();
+        return board;
+    }
+
+    // Reads the first line that is not blank, which holds the size of the board
+    private int readSizeLine() throws IOException {
+        if (!skipBlankLines()) {
+            throw error(line, column(), "expected the size of the board, found an empty file");
+        }
+        int size = readNumber("the size of the board");
+        if (size == 0 || size > MAX_SIZE) {
+            throw error(tokenLine, tokenColumn, "the size of the board must be from 1 to " + MAX_SIZE + ", found " + size);
+        }
+        endLine();
+        return size;
+    }
+
+    /**
+     * Reads a cell line written exactly as "row col state" straight from the buffer, as the level files are.
+     * Anything else, a line cut by the end of the buffer included, is left to the checked path that reports the errors.
+     * @return true if the line was read
+     */
+    private boolean readCellFast(PackedBoard board, int size) {
+        int p = position;
+        if (limit - p < FAST_LINE) {
+            return false;
+        }
+        byte[] b = bytes;
+        int row = 0;
+        int digits = 0;
+        int digit;
+        while ((digit = b[p] - '0') >= 0 && digit <= 9 && digits < 9) {
+            row = row * 10 + digit;
+            p++;
+            digits++;
+        }
+        if (digits == 0 || row >= size || b[p++] != ' ') {
+            return false;
+        }
+        int col = 0;
+        digits = 0;
+        while ((digit = b[p] - '0') >= 0 && digit <= 9 && digits < 9) {
+            col = col * 10 + digit;
+            p++;
+            digits++;
+        }
+        if (digits == 0 || col >= size || b[p++] != ' ') {
+            return false;
+        }
+        int code = STATE_CODES[b[p++] & 0xFF];
+        if (code < 0) {
+            return false;
+        }
+        if (b[p] == '\r') {
+            p++;
+        }
+        if (b[p] != '\n') {
+            return false;
+        }
+        board.writeSolution(row * size + col, code);
+        position = p;
+        nextLine();
+        return true;
+    }
+
+    /**
+     * Reads a number that is not negative.
+     * @param what the name of the number, for the errors
+     * @return the number
+     */
+    private int readNumber(String what) throws IOException {
+        skipSpaces();
+        markToken();
+        int c = peek();
+        if (c < '0' || c > '9') {
+            throw error(tokenLine, tokenColumn, "expected " + what + found(c));
+        }
+        int value = 0;
+        do {
+            int digit = c - '0';
+            if (value > (Integer.MAX_VALUE - digit) / 10) {
+                throw error(tokenLine, tokenColumn, what + " is too large");
+            }
+            value = value * 10 + digit;
+            advance();
+            c = peek();
+        } while (c >= '0' && c <= '9');
+        requireSeparator(what);
+        return value;
+    }
+
+    /**
+     * Reads the state of a cell.
+     * @return the solution code of the cell, see PackedBoard
+     */
+    private int readState() throws IOException {
+        skipSpaces();
+        markToken();
+        int c = peek();
+        int code;
+        if (c >= '0' && c <= '8') {
+            code = c - '0';
+        } else if (c == 'M') {
+            code = PackedBoard.MINE;
+        } else if (c == '-') {
+            code = PackedBoard.BLANK;
+        } else {
+            throw error(tokenLine, tokenColumn, "expected a cell state (0 to 8, M or -)" + found(c));
+        }
+        advance();
+        requireSeparator("the cell state");
+        return code;
+    }
+
+    // Checks that a token is followed by a space, the end of the line or the end of the file
+    private void requireSeparator(String what) throws IOException {
+        int c = peek();
+        if (c != END && !isSpace(c) && c != '\n') {
+            throw error(line, column(), "unexpected '" + (char) c + "' after " + what);
+        }
+    }
+
+    // Goes past the end of the current line, only spaces may come before it
+    private void endLine() throws IOException {
+        skipSpaces();
+        int c = peek();
+        if (c == '\n') {
+            nextLine();
+        } else if (c != END) {
+            throw error(line, column(), "expected the end of the line" + found(c));
+        }
+    }
+
+    /**
+     * Skips the lines holding nothing but spaces.
+     * @return false at the end of the file
+     */
+    private boolean skipBlankLines() throws IOException {
+        while (true) {
+            skipSpaces();
+            int c = peek();
+            if (c == END) {
+                return false;
+            }
+            if (c != '\n') {
+                return true;
+            }
+            nextLine();
+        }
+    }
+
+    private void skipSpaces() throws IOException {
+        while (isSpace(peek())) {
+            advance();
+        }
+    }
+
+    // Spaces inside a line, the \r of Windows line endings included
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    /**
+     * Looks at the next byte without moving past it.
+     * @return the byte, END at the end of the file
+     */
+    private int peek() throws IOException {
+        return position < limit ? bytes[position] & 0xFF : fill();
+    }
+
+    /**
+     * Reads the next block of the file once the buffer is used up.
+     * @return the first byte of the block, END at the end of the file
+     */
+    private int fill() throws IOException {
+        if (finished) {
+            return END;
+        }
+        base += limit;
+        position = 0;
+        limit = 0;
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        if (read < 0) {
+            finished = true;
+            return END;
+        }
+        limit = read;
+        return bytes[0] & 0xFF;
+    }
+
+    // Moves past the byte given by the last peek, which is not a line ending
+    private void advance() {
+        position++;
+    }
+
+    // Moves past the line ending given by the last peek
+    private void nextLine() {
+        position++;
+        line++;
+        lineStart = base + position;
+    }
+
+    // The column of the next byte, counted from 1
+    private int column() {
+        return (int) (base + position - lineStart) + 1;
+    }
+
+    private void markToken() {
+        tokenLine = line;
+        tokenColumn = column();
+    }
+
+    // Describes what was found instead of what was expected
+    private static String found(int c) {
+        if (c == END) {
+            return ", found the end of the file";
+        }
+        if (c == '\n') {
+            return ", found the end of the line";
+        }
+        return ", found '" + (char) c + "'";
+    }
+
+    private LevelFormatException error(int errorLine, int errorColumn, String message) {
+        return new LevelFormatException(file, errorLine, errorColumn, message);
+    }
+}
@@ -0,0 +1,117 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * The following tests are meant for the LevelFileParser.
+ * They read the level files of the game and level files written into a temporary folder.
+ *
+ * @version 1.0
+ */
+public class LevelFileParserTest {
+    @TempDir
+    Path folder;
+
+    // Writes a level file and gives its path
+    private String write(String text) throws IOException {
+        Path file = folder.resolve("level.txt");
+        Files.writeString(file, text);
+        return file.toString();
+    }
+
+    // Checks that reading a level file fails at a line and column
+    private void assertError(String text, int line, int column) throws IOException {
+        String file = write(text);
+        LevelFormatException e = assertThrows(LevelFormatException.class, () -> LevelFileParser.parse(file));
+        assertEquals(line, e.getLine(), e.getMessage());
+        assertEquals(column, e.getColumn(), e.getMessage());
+    }
+
+    /**
+     * Tests that the first level is read with its size, its cells and its counters.
+     */
+    @Test
+    public void testLevelFile() throws IOException {
+        PackedBoard board = LevelFileParser.parse("Levels/em1.txt");
+        assertEquals(5, board.getRows());
+        assertEquals(5, board.getCols());
+        assertEquals(PackedBoard.MINE, board.getSolution(board.index(0, 0)));
+        assertEquals(1, board.getSolution(board.index(0, 1)));
+        assertEquals(PackedBoard.BLANK, board.getSolution(board.index(0, 2)));
+        assertEquals(2, board.getSolution(board.index(0, 3)));
+        assertEquals(PackedBoard.HIDDEN, board.getPlayer(board.index(0, 0)));
+        int mines = 0;
+        for (int i = 0; i < board.size(); i++) {
+            mines += board.getSolution(i) == PackedBoard.MINE ? 1 : 0;
+        }
+        assertEquals(board.size() - mines, board.getHiddenSafeCount());
+    }
+
+    /**
+     * Tests that the size of a level is read from its first line without reading the cells.
+     */
+    @Test
+    public void testReadSize() throws IOException {
+        assertEquals(5, LevelFileParser.readSize("Levels/em1.txt"));
+        assertEquals(3, LevelFileParser.readSize(write("\n3\n0 0 x\n"))); // The bad cell is never read
+        String empty = write("");
+        assertThrows(LevelFormatException.class, () -> LevelFileParser.readSize(empty));
+    }
+
+    /**
+     * Tests that Windows line endings, tabs, blank lines and a missing last line ending are accepted.
+     */
+    @Test
+    public void testSpacing() throws IOException {
+        PackedBoard board = LevelFileParser.parse(write("\r\n2\r\n0 0 M\r\n\r\n0\t1  1 \r\n1 0 1\n1 1 -"));
+        assertEquals(PackedBoard.MINE, board.getSolution(0));
+        assertEquals(1, board.getSolution(1));
+        assertEquals(1, board.getSolution(2));
+        assertEquals(PackedBoard.BLANK, board.getSolution(3));
+        assertEquals(3, board.getHiddenSafeCount());
+    }
+
+    /**
+     * Tests that malformed lines are reported with the line and column of the problem.
+     */
+    @Test
+    public void testErrors() throws IOException {
+        assertError("", 1, 1); // No size
+        assertError("0\n", 1, 1); // Empty board
+        assertError("2\n0 0 M\n0 x 1\n", 3, 3); // A column that is not a number
+        assertError("2\n0 0 M\n2 0 1\n", 3, 1); // A row outside the board
+        assertError("2\n0 0 M\n1 1 9\n", 3, 5); // An unknown state
+        assertError("2\n0 0 M\n1 1\n", 3, 4); // A missing state
+        assertError("2\n0 0 M 1\n", 2, 7); // Too much on a line
+        assertError("2\n0 0 Mx\n", 2, 6); // A state longer than one character
+        assertError("2\n0 99999999999 M\n", 2, 3); // A number too large for an int
+    }
+
+    /**
+     * Tests that a level of a million cells reads back exactly the board it was written from,
+     * and that a game can be started on it.
+     */
+    @Test
+    public void testLargeLevel() throws IOException {
+        PackedBoard generated = LevelGenerator.generate(1000, 1000, 150000, 7);
+        Path file = folder.resolve("large.txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("1000\n");
+            for (int i = 0; i < generated.size(); i++) {
+                writer.write(i / 1000 + " " + i % 1000 + " " + PackedBoard.toText(generated.getSolution(i)) + "\n");
+            }
+        }
+        PackedBoard board = LevelFileParser.parse(file.toString());
+        for (int i = 0; i < board.size(); i++) {
+            assertEquals(generated.getSolution(i), board.getSolution(i), "cell " + i);
+        }
+        assertEquals(generated.getHiddenSafeCount(), board.getHiddenSafeCount());
+        Minesweeper game = new Minesweeper(file.toString());
+        assertEquals(1000, game.getGameSize());
+        assertEquals(850000, game.getHiddenSafeCount());
+    }
+}
@@ -0,0 +1,41 @@
+import java.io.IOException;
+
+/**
+ * This exception is thrown when a level file does not follow the format of the Levels/emN.txt files.
+ * It keeps the line and column where the problem was found, both counted from 1.
+ *
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class LevelFormatException extends IOException {
+    private static final long serialVersionUID = 1L;
+    private final int line;
+    private final int column;
+
+    /**
+     * Creates the exception.
+     * @param file the level file
+     * @param line the line of the problem
+     * @param column the column of the problem
+     * @param message what was wrong
+     */
+    public LevelFormatException(String file, int line, int column, String message) {
+        super(file + ":" + line + ":" + column + ": " + message);
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * @return the line of the problem, counted from 1
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return the column of the problem, counted from 1
+     */
+    public int getColumn() {
+        return column;
+    }
+}
@@ -0,0 +1,334 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class creates new levels instead of reading them from the Levels/emN.txt files.
+ * A level is built from its width, height, number of mines and a seed,
+ * so the same values always give back exactly the same board.
+ *
+ * A generated level is named with a short description such as "gen-16x30-99-2a",
+ * this name can be used anywhere a level file path is used (for example new Minesweeper(level)).
+ *
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class LevelGenerator {
+    private static final String PREFIX = "gen-"; // Start of the name of every generated level
+    private static final Pattern NAME = Pattern.compile("gen-([0-9]{1,9})x([0-9]{1,9})-([0-9]{1,10})-([0-9a-f]{1,16})"); // Exactly what describe writes
+    private static final int BAND_ROWS = 64; // Rows in each band, fixed so the board does not depend on the threads
+    private static final long EXACT_SPLIT = 4096; // Largest number of mines split by drawing them one by one
+
+    /**
+     * Builds the name of a generated level.
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param mines the number of mines
+     * @param seed the seed of the level
+     * @return the name of the level
+     */
+    public static String describe(int rows, int cols, int mines, long seed) {
+        return PREFIX + rows + "x" + cols + "-" + mines + "-" + Long.toHexString(seed);
+    }
+
+    /**
+     * Checks if a level name belongs to a generated level rather than a level file.
+     * @param level the name of the level
+     * @return true if the level is generated
+     */
+    public static boolean isGenerated(String level) {
+        return level.startsWith(PREFIX);
+    }
+
+    /**
+     * Reads a generated level name back into its size, mines and seed.
+     * Only a name written exactly as describe writes it is accepted, nothing may follow the seed.
+     * @param level the name made by describe
+     * @return the parts of the name
+     * @throws IllegalArgumentException if the name is not a valid generated level
+     */
+    public static Description parse(String level) {
+        Matcher matcher = NAME.matcher(level);
+        try {
+            if (matcher.matches()) {
+                return new Description(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)),
+                    Integer.parseInt(matcher.group(3)), Long.parseUnsignedLong(matcher.group(4), 16));
+            }
+        } catch (NumberFormatException e) {
+            // A number too large for an int, reported below
+        }
+        throw new IllegalArgumentException("Invalid generated level: " + level);
+    }
+
+    /**
+     * Reads the seed back out of a generated level name.
+     * @param level the name made by describe
+     * @return the seed
+     * @throws IllegalArgumentException if the name is not a valid generated level
+     */
+    public static long seedOf(String level) {
+        return parse(level).getSeed();
+    }
+
+    /**
+     * Gives the name of the level that follows a generated level: the same size and mines with the next seed.
+     * @param level the name made by describe
+     * @return the name of the next level
+     * @throws IllegalArgumentException if the name is not a valid generated level
+     */
+    public static String nextLevel(String level) {
+        Description description = parse(level);
+        return describe(description.getRows(), description.getCols(), description.getMines(), description.getSeed() + 1);
+    }
+
+    /**
+     * Generates the board described by a generated level name.
+     * @param level the name made by describe
+     * @return the new board
+     * @throws IllegalArgumentException if the name is not a valid generated level
+     */
+    public static PackedBoard generate(String level) {
+        Description description = parse(level);
+        return generate(description.getRows(), description.getCols(), description.getMines(), description.getSeed());
+    }
+
+    /**
+     * Generates a new board using the common ForkJoinPool.
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param mines the number of mines
+     * @param seed the seed of the level
+     * @return the new board, with every cell hidden
+     */
+    public static PackedBoard generate(int rows, int cols, int mines, long seed) {
+        return generate(rows, cols, mines, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generates a new board on the given pool.
+     * The board is cut into bands of BAND_ROWS rows. The mines are first shared out between the bands
+     * by splitting the bands in two again and again, then every band places its own mines with
+     * selection sampling: every cell is visited once and becomes a mine with the chance
+     * (mines still to place) / (cells still to visit). Once all mines are placed, every band
+     * counts the mines around its cells, reading one row above and below it (the halo).
+     * Every random number comes from a generator seeded by the level seed and the band,
+     * never by the thread, so the board is the same whatever the number of threads.
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param mines the number of mines
+     * @param seed the seed of the level
+     * @param pool the pool that runs the bands
+     * @return the new board, with every cell hidden
+     */
+    public static PackedBoard generate(int rows, int cols, int mines, long seed, ForkJoinPool pool) {
+        PackedBoard board = new PackedBoard(rows, cols);
+        if (mines < 0 || mines > board.size()) {
+            throw new IllegalArgumentException("Invalid number of mines: " + mines);
+        }
+        int bands = (rows + BAND_ROWS - 1) / BAND_ROWS;
+        pool.invoke(new PlaceMines(board, seed, 0, bands, mines));
+        pool.invoke(new CountNeighbours(board, 0, bands));
+        board.recount(); // The bands wrote the cells without touching the counters
+        return board;
+    }
+
+    /**
+     * Mixes a seed with a number, so every band and every split gets its own random numbers.
+     * This is the finalizer of the SplitMix64 generator.
+     * @param seed the level seed
+     * @param value the number of the band or split
+     * @return the mixed seed
+     */
+    private static long mix(long seed, long value) {
+        long z = seed + (value + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Splits a number of mines between two groups of cells as if the mines had been drawn one by one.
+     * Small draws are done exactly, large ones use the normal curve with the same mean and spread,
+     * so the top of the split does not have to draw every mine on one thread.
+     * @param random the random numbers of this split
+     * @param mines the number of mines to split
+     * @param left the number of cells in the first group
+     * @param right the number of cells in the second group
+     * @return the number of mines that go to the first group
+     */
+    private static long splitMines(SplittableRandom random, long mines, long left, long right) {
+        long total = left + right;
+        if (mines <= EXACT_SPLIT) {
+            long taken = 0;
+            long cellsLeft = left;
+            for (long remaining = total, i = 0; i < mines; i++, remaining--) {
+                if (random.nextLong(remaining) < cellsLeft) {
+                    taken++;
+                    cellsLeft--;
+                }
+            }
+            return taken;
+        }
+        double share = (double) left / total;
+        double spread = Math.sqrt(mines * share * (1 - share) * (total - mines) / Math.max(total - 1, 1));
+        long taken = Math.round(mines * share + spread * random.nextGaussian());
+        return Math.max(Math.max(0, mines - right), Math.min(Math.min(mines, left), taken));
+    }
+
+    /**
+     * The size, mines and seed read from a generated level name, known before the board is built.
+     */
+    public static class Description {
+        private final int rows;
+        private final int cols;
+        private final int mines;
+        private final long seed;
+
+        Description(int rows, int cols, int mines, long seed) {
+            this.rows = rows;
+            this.cols = cols;
+            this.mines = mines;
+            this.seed = seed;
+        }
+
+        /**
+         * @return the number of rows
+         */
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * @return the number of columns
+         */
+        public int getCols() {
+            return cols;
+        }
+
+        /**
+         * @return the number of mines
+         */
+        public int getMines() {
+            return mines;
+        }
+
+        /**
+         * @return the seed of the level
+         */
+        public long getSeed() {
+            return seed;
+        }
+    }
+
+    /**
+     * Shares the mines of a group of bands between its two halves, and places them once a single band is left.
+     */
+    private static class PlaceMines extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final PackedBoard board;
+        private final long seed;
+        private final int firstBand; // First band of the group
+        private final int endBand; // Band after the last one of the group
+        private final long mines; // Mines to place in the group
+
+        PlaceMines(PackedBoard board, long seed, int firstBand, int endBand, long mines) {
+            this.board = board;
+            this.seed = seed;
+            this.firstBand = firstBand;
+            this.endBand = endBand;
+            this.mines = mines;
+        }
+
+        @Override
+        protected void compute() {
+            if (endBand - firstBand == 1) {
+                placeBand();
+                return;
+            }
+            int middle = (firstBand + endBand) >>> 1;
+            long leftCells = cellsIn(firstBand, middle);
+            long rightCells = cellsIn(middle, endBand);
+            SplittableRandom random = new SplittableRandom(mix(seed, -((long) firstBand << 32 | endBand)));
+            long leftMines = splitMines(random, mines, leftCells, rightCells);
+            invokeAll(new PlaceMines(board, seed, firstBand, middle, leftMines),
+                new PlaceMines(board, seed, middle, endBand, mines - leftMines));
+        }
+
+        // Places the mines of one band with selection sampling
+        private void placeBand() {
+            int start = firstBand * BAND_ROWS * board.getCols();
+            int size = (int) cellsIn(firstBand, endBand);
+            SplittableRandom random = new SplittableRandom(mix(seed, firstBand));
+            long left = mines; // Mines still to place
+            for (int i = 0; i < size && left > 0; i++) {
+                if (random.nextInt(size - i) < left) {
+                    board.writeSolution(start + i, PackedBoard.MINE);
+                    left--;
+                }
+            }
+        }
+
+        // Counts the cells of a group of bands, the last band can be shorter
+        private long cellsIn(int from, int to) {
+            int lastRow = Math.min(to * BAND_ROWS, board.getRows());
+            return (long) (lastRow - from * BAND_ROWS) * board.getCols();
+        }
+    }
+
+    /**
+     * Writes the number of surrounding mines into every cell that is not a mine.
+     * Each band reads the row above and the row below it, which belong to its neighbours,
+     * but only looks at where the mines are, and those do not change any more.
+     */
+    private static class CountNeighbours extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final PackedBoard board;
+        private final int firstBand; // First band of the group
+        private final int endBand; // Band after the last one of the group
+
+        CountNeighbours(PackedBoard board, int firstBand, int endBand) {
+            this.board = board;
+            this.firstBand = firstBand;
+            this.endBand = endBand;
+        }
+
+        @Override
+        protected void compute() {
+            if (endBand - firstBand == 1) {
+                countBand(firstBand * BAND_ROWS, Math.min(endBand * BAND_ROWS, board.getRows()));
+                return;
+            }
+            int middle = (firstBand + endBand) >>> 1;
+            invokeAll(new CountNeighbours(board, firstBand, middle), new CountNeighbours(board, middle, endBand));
+        }
+
+        /**
+         * Counts the rows of one band.
+         * For each row it adds up the mines of every column in the three rows around it,
+         * then every cell only has to add three of those sums together.
+         */
+        private void countBand(int firstRow, int endRow) {
+            int rows = board.getRows();
+            int cols = board.getCols();
+            int[] columnSums = new int[cols + 2]; // One empty column on each side avoids edge checks
+            for (int r = firstRow; r < endRow; r++) {
+                for (int c = 0; c < cols; c++) {
+                    int sum = 0;
+                    for (int k = Math.max(r - 1, 0); k <= Math.min(r + 1, rows - 1); k++) {
+                        sum += board.isMine(k * cols + c) ? 1 : 0;
+                    }
+                    columnSums[c + 1] = sum;
+                }
+                for (int c = 0; c < cols; c++) {
+                    int index = r * cols + c;
+                    if (!board.isMine(index)) {
+                        int count = columnSums[c] + columnSums[c + 1] + columnSums[c + 2];
+                        board.writeSolution(index, count == 0 ? PackedBoard.BLANK : count);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The test class LevelGeneratorTest is used to test the functionality of LevelGenerator class.
+ * It checks that the generated boards have the right mines and numbers and can be built again from their seed.
+ *
+ * @version 1.0
+ */
+public class LevelGeneratorTest {
+
+    @Test
+    //Tests that the board has exactly the number of mines asked for
+    public void testMineCount() {
+        PackedBoard board = LevelGenerator.generate(20, 30, 99, 7);
+        int mines = 0;
+        for (int i = 0; i < board.size(); i++) {
+            mines += board.isMine(i) ? 1 : 0;
+        }
+        assertEquals(99, mines);
+        assertEquals(20 * 30 - 99, board.getHiddenSafeCount());
+    }
+
+    @Test
+    //Tests that every number matches the mines around the cell
+    public void testNeighbourCounts() {
+        PackedBoard board = LevelGenerator.generate(150, 12, 400, 3);
+        for (int r = 0; r < board.getRows(); r++) {
+            for (int c = 0; c < board.getCols(); c++) {
+                int index = board.index(r, c);
+                if (board.isMine(index)) {
+                    continue;
+                }
+                int count = 0;
+                for (int i = Math.max(r - 1, 0); i <= Math.min(r + 1, board.getRows() - 1); i++) {
+                    for (int j = Math.max(c - 1, 0); j <= Math.min(c + 1, board.getCols() - 1); j++) {
+                        count += board.isMine(board.index(i, j)) ? 1 : 0;
+                    }
+                }
+                assertEquals(count == 0 ? PackedBoard.BLANK : count, board.getSolution(index));
+            }
+        }
+    }
+
+    @Test
+    //Tests that the same seed gives the same board and another seed gives a different one
+    public void testSameSeedSameBoard() {
+        PackedBoard first = LevelGenerator.generate(40, 40, 300, 12345);
+        PackedBoard second = LevelGenerator.generate(40, 40, 300, 12345);
+        PackedBoard other = LevelGenerator.generate(40, 40, 300, 54321);
+        boolean different = false;
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.getSolution(i), second.getSolution(i));
+            different |= first.getSolution(i) != other.getSolution(i);
+        }
+        assertTrue(different);
+    }
+
+    @Test
+    //Tests that a generated level can be used in place of a level file
+    public void testGeneratedGame() {
+        Minesweeper game = new Minesweeper(8, 10, 10, -1L);
+        assertEquals(8, game.getRows());
+        assertEquals(10, game.getCols());
+        assertTrue(LevelGenerator.isGenerated(game.getLevel()));
+        Minesweeper again = new Minesweeper(game.getLevel());
+        assertEquals(game.getBoard().getSolution(17), again.getBoard().getSolution(17));
+        assertEquals("continue", game.checkWin());
+    }
+
+    @Test
+    //Tests that a generated level name is read back into its parts and that anything else in the name is refused
+    public void testParseName() {
+        LevelGenerator.Description description = LevelGenerator.parse(LevelGenerator.describe(16, 30, 99, -1L));
+        assertEquals(16, description.getRows());
+        assertEquals(30, description.getCols());
+        assertEquals(99, description.getMines());
+        assertEquals(-1L, description.getSeed());
+        assertEquals("gen-8x8-1-1", LevelGenerator.nextLevel("gen-8x8-1-0"));
+        assertThrows(IllegalArgumentException.class, () -> LevelGenerator.parse("gen-8x8-1-0-anything"));
+        assertThrows(IllegalArgumentException.class, () -> LevelGenerator.parse("gen-8x8-1"));
+        assertThrows(IllegalArgumentException.class, () -> LevelGenerator.parse("gen-8x8-9999999999-0"));
+        assertThrows(IllegalArgumentException.class, () -> LevelGenerator.generate("gen-8x8-1-0-anything"));
+    }
+
+    @Test
+    //Tests that a large board is the same whatever the number of threads and has the right mines
+    public void testSameBoardOnAnyPool() {
+        PackedBoard single = LevelGenerator.generate(700, 300, 40000, 99, new ForkJoinPool(1));
+        PackedBoard many = LevelGenerator.generate(700, 300, 40000, 99, new ForkJoinPool(4));
+        int mines = 0;
+        for (int i = 0; i < single.size(); i++) {
+            assertEquals(single.getSolution(i), many.getSolution(i));
+            mines += single.isMine(i) ? 1 : 0;
+        }
+        assertEquals(40000, mines);
+        assertEquals(single.size() - 40000, many.getHiddenSafeCount());
+    }
+}
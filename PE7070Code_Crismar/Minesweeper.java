@@ -1,6 +1,8 @@
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * This is the class Minesweeper, and it handles the functionality and logic of the game.
@@ -11,11 +13,17 @@ import java.util.Scanner;
  * @version Student Final Code
  */
 public class Minesweeper {
-    private String[][] gameBoard; // This array stores the board currently displayed to the game
-    private Slot[][] playerBoard; // This is the board of moves for the game
-    private Scanner reader; // This scanner is used to read the game and level files
-    private int gameSize; // This will be the size of the game
-    private String level; // This is the level file, changeable for easy and hard
+    private static final int JOURNAL_BUDGET = 1 << 20; // Longs kept by the journal, 8 MB at most
+    private PackedBoard board; // This stores the solution and the player's moves together, one byte per cell
+    private Slot[][] slotView; // The Slot view of the board, only created when someone asks for it
+    private FloodFill floodFill; // Uncovers the empty areas of the board, only created for the first reveal
+    private CellChanges lastChanges; // The cells changed by the last move
+    private HintEngine hintEngine; // Works out the mine chances, only created when hints are asked for
+    private final List<BoardListener> listeners = new ArrayList<>(); // Told about every change to the board
+    private CellChanges batchChanges; // Collects the changes of a batch of moves, null outside of makeMoves
+    private final MoveJournal journal = new MoveJournal(JOURNAL_BUDGET); // Every move, for undo and redo
+    private int gameSize; // This will be the size of the game, the number of rows for boards that are not square
+    private String level; // This is the level file or the name of a generated level, changeable for easy and hard
     private int lives = 3; //This initializes the lives to 3
 
     /**
@@ -36,39 +44,96 @@ public class Minesweeper {
     }
 
     /**
-     * Initializes the game by reading the level file, 
+     * This constructor creates a game on a generated board instead of a level file.
+     * The same values always give the same board.
+     * @param rows The number of rows of the board.
+     * @param cols The number of columns of the board.
+     * @param mines The number of mines to place.
+     * @param seed The seed used to place the mines.
      */
-    private void initializeGame() {
-        try {
-            reader = new Scanner(new File(level)); 
-            // Creates the scanner with a specific level file 
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        }
-        gameSize = calculateGameSize(); // Calculates the game size
-        gameBoard = new String[gameSize][gameSize]; // Initialize the game board 
-        playerBoard = new Slot[gameSize][gameSize]; // Initialize the player board
-        initializePlayerBoard(); // Sets up the player board
-        readLevelFile(); // Uses level file to create the game board
+    public Minesweeper(int rows, int cols, int mines, long seed) {
+        this(LevelGenerator.describe(rows, cols, mines, seed));
+    }
+
+    /**
+     * This constructor makes a snapshot of another game, see snapshot.
+     * @param source The game to copy.
+     */
+    private Minesweeper(Minesweeper source) {
+        this.level = source.level;
+        this.gameSize = source.gameSize;
+        this.lives = source.lives;
+        this.board = source.board.fork();
+        this.lastChanges = new CellChanges(board.getCols());
     }
 
     /**
-     * Initializes the player board by creating a slot object for every cell in the grid.
-     * It initializes the state of the cell to "".
+     * This method makes a copy of the game in constant time, for solvers, hints and "what if" previews.
+     * The copy shares the board with this game and only copies the parts of it that either game changes,
+     * so both can go on playing without seeing each other's moves.
+     * The copy starts with no moves to undo and no listeners.
+     * @return the copy of the game
      */
-    private void initializePlayerBoard() {
-        for (int i = 0; i < gameSize; i++) {
-            for (int j = 0; j < gameSize; j++) {
-                playerBoard[i][j] = new Slot(i, j, ""); // Create a new Slot object for each cell
+    public Minesweeper snapshot() {
+        return new Minesweeper(this);
+    }
+
+    /**
+     * Initializes the game by reading the level file, or by generating the board for a generated level.
+     */
+    private void initializeGame() {
+        long start = GameMetrics.start();
+        GameEvents.LevelLoad event = new GameEvents.LevelLoad();
+        event.begin();
+        if (LevelGenerator.isGenerated(level)) {
+            board = LevelGenerator.generate(level);
+        } else {
+            try {
+                board = LevelFileParser.parse(level); // Reads every cell of the level file straight into the board
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read the level " + level, e);
             }
         }
+        gameSize = board.getRows();
+        slotView = null; // The old view belongs to the previous board
+        floodFill = null; // The old flood fill belongs to the previous board
+        lastChanges = new CellChanges(board.getCols());
+        hintEngine = null; // The old engine belongs to the previous board
+        journal.clear(); // The moves belong to the previous board
+        GameMetrics.stop(GameMetrics.INITIALIZE_GAME, start);
+        if (event.shouldCommit()) {
+            event.level = level;
+            event.rows = board.getRows();
+            event.cols = board.getCols();
+            event.generated = LevelGenerator.isGenerated(level);
+            event.commit();
+        }
     }
 
     /**
+     * This gives the moves as a grid of Slot objects, it is kept for the classes that still use Slots.
+     * The slots do not hold any state themselves, they read and write the board through the game.
+     * They are only created the first time this method is called.
      * @return the moves in the game
      */
     public Slot[][] getMoves() {
-        return playerBoard;
+        if (slotView == null) {
+            slotView = new Slot[board.getRows()][board.getCols()];
+            for (int i = 0; i < board.getRows(); i++) {
+                for (int j = 0; j < board.getCols(); j++) {
+                    slotView[i][j] = new Slot(this, i, j); // Each slot is a view of one cell
+                }
+            }
+        }
+        return slotView;
+    }
+
+    /**
+     * This gives the packed board that stores the game.
+     * @return the board of the game
+     */
+    public PackedBoard getBoard() {
+        return board;
     }
 
     /**
@@ -78,15 +143,15 @@ public class Minesweeper {
      * @return The state of that cell
      */
     public String getIndividualMove(int row, int col) {
-        return playerBoard[row][col].getState();
+        return getCellState(row, col);
     }
 
     /**
-     * This method reads the game size from the file 
+     * This method gives the game size, read from the first line of the level file
      * @return the size of the puzzle
      */
     public int calculateGameSize() {
-        return Integer.parseInt(reader.next());
+        return gameSize;
     }
 
     /**
@@ -98,46 +163,85 @@ public class Minesweeper {
     }
 
     /**
-     * This method reads the level file to populate the game
-     * @return The moves stored in the file
+     * This method gets the number of rows, the same as the game size for the square levels
+     * @return the number of rows of the board
+     */
+    public int getRows() {
+        return board.getRows();
+    }
+
+    /**
+     * This method gets the number of columns, the same as the game size for the square levels
+     * @return the number of columns of the board
+     */
+    public int getCols() {
+        return board.getCols();
+    }
+
+    /**
+     * This method gives the solution read from the level file, the board itself is filled by the LevelFileParser
+     * @return The solution of the level, one String per cell
      */
     public String[][] readLevelFile() {
-        while (reader.hasNext()) {
-            int row = Integer.parseInt(reader.next());
-            int col = Integer.parseInt(reader.next());
-            String move = reader.next();
-            
-            gameBoard[row][col] = move;
-            playerBoard[row][col].setState("");
+        String[][] gameBoard = new String[board.getRows()][board.getCols()]; // Copy of the solution for the callers that need Strings
+        for (int i = 0; i < board.getRows(); i++) {
+            for (int j = 0; j < board.getCols(); j++) {
+                gameBoard[i][j] = PackedBoard.toText(board.getSolution(board.index(i, j)));
+            }
         }
         return gameBoard;
     }
 
     /**
-     * This method checks whether the game has been won
+     * This method checks whether the game has been won.
+     * The board keeps count of the safe cells that are still hidden, so this does not scan the board.
      * @return whether the game has been won
      */ 
     public String checkWin() {
+        GameMetrics.checkWinCalled();
         if (lives <= 0) {
             return "lost";
         }
-
-        for (int i = 0; i < gameSize; i++) {
-            for (int j = 0; j < gameSize; j++) {
-                if (!gameBoard[i][j].equals("M") && playerBoard[i][j].getState().equals("")) {
-                    return "continue";
-                }
-            }
+        if (board.getHiddenSafeCount() > 0) {
+            return "continue";
         }
         return "won";
     }
 
+    /**
+     * This method gets the number of cells without a mine that are still hidden or flagged
+     * @return the number of hidden safe cells
+     */
+    public int getHiddenSafeCount() {
+        return board.getHiddenSafeCount();
+    }
+
+    /**
+     * This method gets the number of flags placed on the board
+     * @return the number of flags
+     */
+    public int getFlagCount() {
+        return board.getFlagCount();
+    }
+
+    /**
+     * This method gets the number of mines the player has uncovered
+     * @return the number of revealed mines
+     */
+    public int getRevealedMineCount() {
+        return board.getRevealedMineCount();
+    }
+
     /**
      * 
      * Changes the game to the next difficulty.
+     * A generated level moves on to a new board of the same size, using the next seed.
      */
     public void changeLevel() {
-        if (level.equals("Levels/em1.txt")) {
+        if (LevelGenerator.isGenerated(level)) {
+            level = LevelGenerator.nextLevel(level);
+            System.out.println("New generated level");
+        } else if (level.equals("Levels/em1.txt")) {
             level = "Levels/em2.txt";
             System.out.println("Difficulty: Medium");
         } else if (level.equals("Levels/em2.txt")) {
@@ -158,54 +262,227 @@ public class Minesweeper {
     }
 
     /**
-     * This method allows a user to make a move in the game
+     * This method allows a user to make a move in the game.
+     * Guessing an empty cell uncovers the whole empty area around it,
+     * all the cells that changed can be read from getLastChanges.
      * @param row - the row of the move
      * @param col - the column of the move
      * @param guess - the guess they are making
      * @return the result of the move
      */
     public String makeMove(String row, String col, String guess) {
-        int enteredRow = Integer.parseInt(row);
-        int enteredCol = Integer.parseInt(col);
-        String currentState = playerBoard[enteredRow][enteredCol].getState();
+        MoveAction action = guess.equals("F") ? MoveAction.FLAG : guess.equals("G") ? MoveAction.GUESS : null;
+        return applyMove(board.index(Integer.parseInt(row), Integer.parseInt(col)), action).getMessage(lives);
+    }
+
+    /**
+     * This method makes a move without any text, for the GUI, the bots and anything else that has the numbers already.
+     * The message for the player can be built from the result with getMessage.
+     * @param row - the row of the move
+     * @param col - the column of the move
+     * @param action - whether to guess or flag the cell
+     * @return the result of the move
+     */
+    public MoveResult makeMove(int row, int col, MoveAction action) {
+        if (action == null) {
+            throw new IllegalArgumentException("A move needs an action");
+        }
+        return applyMove(board.index(row, col), action);
+    }
+
+    /**
+     * This method makes a list of moves in order, for scripted players and replays.
+     * It stops as soon as the game is won or lost, and the listeners are only told once,
+     * with every cell changed by all the moves.
+     * @param rows - the row of every move
+     * @param cols - the column of every move
+     * @param actions - the action of every move
+     * @return the result of every move made, shorter than the lists if the game ended early
+     */
+    public MoveResult[] makeMoves(int[] rows, int[] cols, MoveAction[] actions) {
+        if (rows.length != cols.length || rows.length != actions.length) {
+            throw new IllegalArgumentException("Every move needs a row, a column and an action");
+        }
+        MoveResult[] results = new MoveResult[rows.length];
+        CellChanges changes = new CellChanges(board.getCols());
+        batchChanges = changes;
+        int made = 0;
+        try {
+            while (made < rows.length && lives > 0 && board.getHiddenSafeCount() > 0) {
+                results[made] = makeMove(rows[made], cols[made], actions[made]);
+                made++;
+            }
+        } finally {
+            batchChanges = null;
+            lastChanges.clear();
+            lastChanges.addAll(changes); // The last changes of a batch are the changes of the whole batch
+            fireChanges(lastChanges);
+        }
+        return made == results.length ? results : Arrays.copyOf(results, made);
+    }
+
+    /**
+     * This method adds a listener that is told every time the board changes.
+     * @param listener - the listener to add
+     */
+    public void addBoardListener(BoardListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * This method removes a listener added with addBoardListener.
+     * @param listener - the listener to remove
+     */
+    public void removeBoardListener(BoardListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * This method applies a move to a cell and records how long it took.
+     * @param index - the index of the cell in the board
+     * @param action - the action, or null if the player asked for something that is not an action
+     * @return the result of the move
+     */
+    private MoveResult applyMove(int index, MoveAction action) {
+        long start = GameMetrics.start();
+        GameEvents.Move event = new GameEvents.Move();
+        event.begin();
+        MoveResult result = decideMove(index, action);
+        GameMetrics.stop(GameMetrics.MOVE, start);
+        if (event.shouldCommit()) {
+            event.rows = board.getRows();
+            event.cols = board.getCols();
+            event.row = index / board.getCols();
+            event.col = index % board.getCols();
+            event.action = String.valueOf(action);
+            event.result = result.name();
+            event.cellsChanged = lastChanges.size();
+            event.commit();
+        }
+        return result;
+    }
+
+    /**
+     * This method works out what a move does and makes it.
+     * @param index - the index of the cell in the board
+     * @param action - the action, or null if the player asked for something that is not an action
+     * @return the result of the move
+     */
+    private MoveResult decideMove(int index, MoveAction action) {
+        int currentState = board.getPlayer(index);
+        lastChanges.clear();
         // Checks for the flag mode
-        if (guess.equals("F")) {
-            if (currentState.equals("?")) {
-                new Assign(this, enteredRow, enteredCol, "");
-                return "Cell not flagged.";//In case the cell is already flagged it removes the flag
-            } else if (currentState.equals("")) {
-                new Assign(this, enteredRow, enteredCol, "?");//Otherwise it adds the flag
-                return "Cell flagged.";
+        if (action == MoveAction.FLAG) {
+            if (currentState == PackedBoard.FLAGGED) {
+                toggleFlag(index);
+                return MoveResult.UNFLAGGED;//In case the cell is already flagged it removes the flag
+            } else if (currentState == PackedBoard.HIDDEN) {
+                toggleFlag(index);//Otherwise it adds the flag
+                return MoveResult.FLAGGED;
             }
         }
 
-        if (currentState.equals("?") && guess.equals("G")) {
-            return "You need to unflag this cell in order to guess.";
-            //Message in case the user tries to guess a flagged cell
+        if (currentState == PackedBoard.FLAGGED && action == MoveAction.GUESS) {
+            return MoveResult.FLAGGED_CELL_GUESSED;
+            //In case the user tries to guess a flagged cell
         }
 
-        if (!currentState.equals("") && !currentState.equals("?")) {
-            return "This cell has already been revealed.";
-            //Message in case the user clicks on a revealed cell again
+        if (currentState != PackedBoard.HIDDEN && currentState != PackedBoard.FLAGGED) {
+            return MoveResult.ALREADY_REVEALED;
+            //In case the user clicks on a revealed cell again
         }
 
-        if (guess.equals("G")) {
-            if (gameBoard[enteredRow][enteredCol].equals("M")) {
-                lives -= 1;
-                new Assign(this, enteredRow, enteredCol, "M");
-                return "You have lost one life. \nNew life total: " + lives;
-                //Logic for losing a life when you guess a mine
-            } else if (gameBoard[enteredRow][enteredCol].equals("-")) {
-                new Assign(this, enteredRow, enteredCol, "-");
-                //Logic for empty spaces
-            } else {
-                new Assign(this, enteredRow, enteredCol, gameBoard[enteredRow][enteredCol]);
-                //Logic for displaying the state/number of that cell
-            }
-            return "Good move, keep guessing!";
+        if (action == MoveAction.GUESS) {
+            return revealCell(index) ? MoveResult.MINE_HIT : MoveResult.SAFE;
+            //A mine costs a life, anything else is a good move
         } 
-        return "This method it not a permitted option";
-        //Error message if the guess is anything else but "M" or "G"
+        return MoveResult.NOT_PERMITTED;
+        //In case the guess is anything else but "F" or "G"
+    }
+
+    /**
+     * This method uncovers a hidden cell, it is the fast path used by makeMove and by the solver.
+     * An empty cell uncovers the whole empty area around it, and a mine costs a life.
+     * The cells that changed can be read from getLastChanges.
+     * @param index - the index of the cell in the board
+     * @return true if the cell was a mine
+     */
+    boolean revealCell(int index) {
+        lastChanges.clear();
+        if (board.getPlayer(index) != PackedBoard.HIDDEN) {
+            return false; // Only hidden cells can be uncovered
+        }
+        if (board.isMine(index)) {
+            lives -= 1;
+            setCell(index, PackedBoard.MINE);
+            journal.record(board, lastChanges, PackedBoard.HIDDEN, -1);
+            publishChanges();
+            return true;
+        }
+        if (floodFill == null) {
+            floodFill = new FloodFill(board);
+        }
+        long start = GameMetrics.start();
+        int revealed = floodFill.reveal(index, lastChanges);
+        GameMetrics.stop(GameMetrics.CASCADE, start);
+        GameMetrics.cellsRevealed(revealed);
+        //Shows the number of that cell, or the whole empty area if the cell is empty
+        journal.record(board, lastChanges, PackedBoard.HIDDEN, 0);
+        publishChanges();
+        return false;
+    }
+
+    /**
+     * This method flags a hidden cell, or removes the flag of a flagged cell, without building any message.
+     * @param index - the index of the cell in the board
+     */
+    void toggleFlag(int index) {
+        lastChanges.clear();
+        int currentState = board.getPlayer(index);
+        if (currentState == PackedBoard.FLAGGED) {
+            setCell(index, PackedBoard.HIDDEN);
+        } else if (currentState == PackedBoard.HIDDEN) {
+            setCell(index, PackedBoard.FLAGGED);
+        }
+        journal.record(board, lastChanges, currentState, 0);
+        publishChanges();
+    }
+
+    /**
+     * This method gives the chance of a mine under every hidden cell next to an uncovered number.
+     * Only the parts of the board changed since the last call are worked out again.
+     * @return the hints for the current board
+     */
+    public HintEngine.Hints getHints() {
+        if (hintEngine == null) {
+            hintEngine = new HintEngine(board);
+        }
+        return hintEngine.getHints();
+    }
+
+    /**
+     * This method passes the cells changed by the last action to the parts of the game that follow the board.
+     * During a batch of moves the changes are only collected, they are passed on once the batch ends.
+     */
+    private void publishChanges() {
+        if (batchChanges != null) {
+            batchChanges.addAll(lastChanges);
+            return;
+        }
+        fireChanges(lastChanges);
+    }
+
+    /**
+     * This method tells the hint engine and the listeners about changed cells.
+     * @param changes - the cells that changed
+     */
+    private void fireChanges(CellChanges changes) {
+        if (hintEngine != null) {
+            hintEngine.cellsChanged(changes);
+        }
+        for (BoardListener listener : listeners) {
+            listener.boardChanged(changes);
+        }
     }
 
     /**
@@ -215,7 +492,65 @@ public class Minesweeper {
      * @return the state of the cell
      */
     public String getCellState(int row, int col) {
-        return playerBoard[row][col].getState();
+        return PackedBoard.toText(board.getPlayer(board.index(row, col)));
+    }
+
+    /**
+     * This method gets the cells changed by the last move or undo, so they can be repainted together.
+     * The list is reused by the next move.
+     * @return the cells changed by the last move
+     */
+    public CellChanges getLastChanges() {
+        return lastChanges;
+    }
+
+    /**
+     * This method changes what the player sees in a cell and adds it to the last changes.
+     * @param index - the index of the cell in the board
+     * @param code - the new player code of the cell
+     */
+    private void setCell(int index, int code) {
+        board.setPlayer(index, code);
+        lastChanges.add(index);
+    }
+
+    /**
+     * This method sets what the player sees in a cell without making a move, it is how the Slot view
+     * and Assign change the board. The listeners are told, but the change cannot be undone.
+     * @param row - the row of the cell
+     * @param col - the column of the cell
+     * @param code - the new player code of the cell
+     */
+    void assignCell(int row, int col, int code) {
+        int index = board.index(row, col);
+        if (board.getPlayer(index) == code) {
+            return; // Only tell others if the state actually changes
+        }
+        lastChanges.clear();
+        setCell(index, code);
+        publishChanges();
+    }
+
+    /**
+     * This method sets what the player sees in a run of cells while a saved game is loaded.
+     * Nobody is told and nothing is journaled, restored has to be called once every cell is set.
+     * @param start - the index of the first cell
+     * @param codes - the player codes of the cells
+     * @param count - the number of cells
+     */
+    void restoreCells(int start, byte[] codes, int count) {
+        board.writePlayers(start, codes, count);
+    }
+
+    /**
+     * This method finishes loading a saved game: the counters are worked out again, the moves are forgotten
+     * and the hints are worked out again when asked for.
+     */
+    void restored() {
+        board.recount();
+        journal.clear();
+        lastChanges.clear();
+        hintEngine = null;
     }
 
     /**
@@ -236,6 +571,7 @@ public class Minesweeper {
 
     /**
      * This method is used to undo the last move made.
+     * It only hides one cell again, undo puts back everything the last move changed.
      * @param row the row of the cell to undo
      * @param col the column of the cell to undo
      * @param wasBomb whether the cell was a bomb
@@ -245,7 +581,49 @@ public class Minesweeper {
         if (wasBomb) {
             lives += 1;
         }
-        playerBoard[row][col].setState("");//Resets to initial state
+        int index = board.index(row, col);
+        int previous = board.getPlayer(index);
+        lastChanges.clear();
+        setCell(index, PackedBoard.HIDDEN);//Resets to initial state
+        journal.record(board, lastChanges, previous, wasBomb ? 1 : 0);
+        publishChanges();
+    }
+
+    /**
+     * This method undoes the last move: every cell it changed is put back, flags included,
+     * and a life lost on a mine is given back. The cells can be read from getLastChanges.
+     * @return false if there was no move to undo
+     */
+    public boolean undo() {
+        if (!journal.canUndo()) {
+            return false;
+        }
+        lastChanges.clear();
+        lives -= journal.undo(board, lastChanges);
+        publishChanges();
+        return true;
+    }
+
+    /**
+     * This method makes again the last move that was undone, as long as no other move was made since.
+     * @return false if there was no move to redo
+     */
+    public boolean redo() {
+        if (!journal.canRedo()) {
+            return false;
+        }
+        lastChanges.clear();
+        lives += journal.redo(board, lastChanges);
+        publishChanges();
+        return true;
+    }
+
+    /**
+     * This method forgets every move made so far, for when the board was changed without making moves,
+     * for example when a saved game is loaded into it.
+     */
+    public void clearHistory() {
+        journal.clear();
     }
 
     /**
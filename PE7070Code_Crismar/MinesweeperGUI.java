@@ -1,7 +1,8 @@
 import javax.swing.*;
 import java.awt.*;
-import java.util.Stack;
 import java.io.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * MinesweeperGUI Class
@@ -14,7 +15,6 @@ import java.io.*;
  */
 public class MinesweeperGUI extends JFrame {
     private Minesweeper game;  // Instance of the Minesweeper game
-    private Stack<int[]> previousMoves;  // Stack of previous moves
     private JLabel modeLabel;  // Label for current mode (Guess/Flag)
     private JTextArea messageArea;  // Message area
     private String currentMode;  // Current mode (Guess or Flag)
@@ -22,6 +22,11 @@ public class MinesweeperGUI extends JFrame {
     private GameGrid gameGrid;  // Panel to display the game grid
     private ButtonsMenu buttonsMenu;  // Action buttons menu
     private JButton modeButton;  // Button to switch between Guess and Flag modes
+    private final ExecutorService fileWorker = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "game-files");
+        thread.setDaemon(true);
+        return thread;
+    });  // Saves and loads games one at a time, off the event thread
 
     /**
      * Initializes the game and user graphical interface creating the main window.
@@ -40,7 +45,6 @@ public class MinesweeperGUI extends JFrame {
      */
     private void initializeGame() {
         game = new Minesweeper();  // Creates a new Minesweeper game
-        previousMoves = new Stack<>();  // Creates a stack for previous moves
         currentMode = "Guess a square";  // Initial mode is set to "Guess a square"
     }
 
@@ -91,21 +95,23 @@ public class MinesweeperGUI extends JFrame {
      * After it does this it outputs the result of the move while checking for the win/loss scenarios.
      */
     public void handleButtonClick(int row, int col) {
-        // Adds move to the stack if it is different from the last one, this keeps our undo function cleaner
-        if (previousMoves.isEmpty() || !isSameMove(previousMoves.peek(), row, col)) {
-            previousMoves.push(new int[]{row, col});
-        }
-        String result;
-        if (currentMode.equals("Guess a square")) {
-            result = game.makeMove(Integer.toString(row), Integer.toString(col), "G");
-        } else {
-            result = game.makeMove(Integer.toString(row), Integer.toString(col), "F");
-        }
+        // The game keeps the moves itself, so every move can be undone
+        GameEvents.Click event = new GameEvents.Click();
+        event.begin();
+        MoveAction action = currentMode.equals("Guess a square") ? MoveAction.GUESS : MoveAction.FLAG;
+        MoveResult result = game.makeMove(row, col, action);
+        int cellsChanged = game.getLastChanges().size();
         //Makes the move and gets the result of it
 
-        // Update the game status and message area
+        // The grid repaints every cell the move changed, update the game status and message area
         updateStatus();
-        messageArea.append(result + "\n");
+        messageArea.append(result.getMessage(game.getLives()) + "\n");
+        if (event.shouldCommit()) { // Before the win or loss message, which waits for the player
+            event.row = row;
+            event.col = col;
+            event.cellsChanged = cellsChanged;
+            event.commit();
+        }
         checkGameStatus();  // Checks if the game has been won or lost
     }
 
@@ -119,7 +125,9 @@ public class MinesweeperGUI extends JFrame {
         modeButton.setText(currentMode.equals("Guess a square") ? "Switch to Flag" : "Switch to Guess");
 
         // Update the difficulty level in the game status panel
-        String difficulty = game.getLevel().equals("Levels/em1.txt") ? "Easy" : game.getLevel().equals("Levels/em2.txt") ? "Medium" : "Hard";
+        String level = game.getLevel();
+        String difficulty = LevelGenerator.isGenerated(level) ? "Generated " + game.getRows() + "x" + game.getCols()
+            : level.equals("Levels/em1.txt") ? "Easy" : level.equals("Levels/em2.txt") ? "Medium" : "Hard";
         gameStatus.updateDifficulty(difficulty);
     }
 
@@ -157,44 +165,88 @@ public class MinesweeperGUI extends JFrame {
     /**
      * This function saves the current game to its respective file, 
      * following this it outputs a success or failure message.
+     * The board is copied as it is now and the copy is written in the background,
+     * so the game can go on while the file is written.
      */
     public void saveGame() {
-        try {
-            // Save the current game state to a file
-            GameFileHandler.saveGame(game.getMoves(), game.getLevel(), game.getLives());
-
-            // Extract the level number from the file name
-            String levelFileName = game.getLevel();
-            String levelNumber = levelFileName.replace("Levels/em", "").replace(".txt", "");
-
-            messageArea.append("Game saved successfully for Level " + levelNumber + "!\n");
-        } catch (IOException e) {
-            messageArea.append("Failed to save the game.\n");
-        }
+        Minesweeper copy = game.snapshot();  // Constant time, later moves do not change the copy
+        // Extract the level number from the file name
+        String levelNumber = copy.getLevel().replace("Levels/em", "").replace(".txt", "");
+        fileWorker.execute(() -> {
+            String message = "Failed to save the game.\n"; // Kept if the save fails in any way
+            try {
+                // Save the copied game state to a file
+                GameFileHandler.saveGame(copy);
+                message = "Game saved successfully for Level " + levelNumber + "!\n";
+            } catch (IOException | RuntimeException e) {
+                // Reported below
+            } finally {
+                String result = message;
+                SwingUtilities.invokeLater(() -> messageArea.append(result));
+            }
+        });
     }
 
     /**
      * Loads the saved game, updates the game grid, 
      * and appends a message indicating the game has been loaded or not.
+     * The save is read into a copy of the game in the background and the copy
+     * then replaces the game in one step, on the event thread.
      */
     public void loadGame() {
-        GameFileHandler.loadGameToGUI(game.getLevel(), game, gameGrid, messageArea, previousMoves);
-        updateStatus();  
+        String level = game.getLevel();
+        if (!GameFileHandler.isSaveFilePresent(level)) {
+            messageArea.append("There is no saved game to load for this current level.\n");
+            return;
+        }
+        Minesweeper current = game;
+        Minesweeper loaded = current.snapshot();
+        fileWorker.execute(() -> {
+            int cells = -1; // Kept if the load fails in any way, a damaged save included
+            try {
+                cells = GameFileHandler.loadGame(level, loaded);  // Load the game state from the file
+            } catch (IOException | RuntimeException e) {
+                // Reported by finishLoad
+            } finally {
+                int elementCount = cells;
+                SwingUtilities.invokeLater(() -> finishLoad(current, loaded, elementCount));
+            }
+        });
+    }
+
+    /**
+     * Puts a game loaded in the background in place of the current one.
+     * @param current the game when the load started, the load is dropped if another game or level replaced it since
+     * @param loaded the loaded game
+     * @param elementCount the number of cells loaded, -1 if the load failed
+     */
+    private void finishLoad(Minesweeper current, Minesweeper loaded, int elementCount) {
+        if (elementCount < 0) {
+            messageArea.append("Failed to load the saved game.\n");
+            return;
+        }
+        if (elementCount == 0) {
+            messageArea.append("There is no saved version for this level.\n");
+            return;
+        }
+        if (game != current || !current.getLevel().equals(loaded.getLevel())) {
+            messageArea.append("The game changed while loading, the saved game was not loaded.\n");
+            return;
+        }
+        game = loaded;
+        gameGrid.setGame(game);  // Set the game in the game grid
+        gameGrid.updateAllButtons();  // Update the GUI buttons
+        updateStatus();
+        String levelNumber = game.getLevel().replace("Levels/em", "").replace(".txt", "");
+        messageArea.append("Game loaded for Level " + levelNumber + " with " + game.getLives() + " lives!\n");
     }
 
     /**
      * Undoes the last move made in the game and updates the game grid. 
      */
     public void undoMove() {
-        // Check if there are previous moves to undo
-        if (!previousMoves.isEmpty()) {
-            // Undo the last move
-            int[] lastMove = previousMoves.pop();
-            int row = lastMove[0];
-            int col = lastMove[1];
-            boolean wasBomb = game.getCellState(row, col).equals("M");
-            game.undoMove(row, col, wasBomb);
-            gameGrid.updateButton(row, col);
+        // Undo the last move, with every cell it uncovered, if there is one
+        if (game.undo()) {
             updateStatus();
             messageArea.append("Previous move undone.\n");
         } else {
@@ -202,6 +254,19 @@ public class MinesweeperGUI extends JFrame {
         }
     }
 
+    /**
+     * Makes again the last move that was undone and updates the game grid.
+     */
+    public void redoMove() {
+        if (game.redo()) {
+            updateStatus();
+            messageArea.append("Move redone.\n");
+            checkGameStatus();  // The move may have won or lost the game again
+        } else {
+            messageArea.append("No moves to redo.\n");
+        }
+    }
+
     /**
      * This function is used to move between game levels.
      * Once the level is changed it resets the lives, updates the game board to the new level
@@ -222,6 +287,11 @@ public class MinesweeperGUI extends JFrame {
                 game = new Minesweeper("Levels/em1.txt");
                 buttonsMenu.getLevelButton().setText("Next Level");
             }
+            default -> {
+                // A generated level goes back to the first level file
+                game = new Minesweeper("Levels/em1.txt");
+                buttonsMenu.getLevelButton().setText("Next Level");
+            }
         }
         game.resetLives();  // Reset lives to 3
         gameGrid.setGame(game);
@@ -252,13 +322,6 @@ public class MinesweeperGUI extends JFrame {
         return game;
     }
 
-    /**
-     * Checks if the current move is the same as the previous one.
-     */
-    private boolean isSameMove(int[] lastMove, int row, int col) {
-        return lastMove[0] == row && lastMove[1] == col;
-    }
-
     /**
      * The main method to launch the Minesweeper GUI.
      */
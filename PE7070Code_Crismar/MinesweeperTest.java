@@ -117,4 +117,98 @@ public class MinesweeperTest {
 
         assertEquals("won", minesweeper.checkWin());
     }
+
+    /**
+     * Tests that the counters used by checkWin follow flags, mines and undos.
+     */
+    @Test
+    public void testRunningCounters() {
+        int hidden = minesweeper.getHiddenSafeCount();
+        assertEquals(21, hidden); // The first level has 25 cells and 4 mines
+        minesweeper.makeMove("0", "1", "F");
+        assertEquals(1, minesweeper.getFlagCount());
+        assertEquals(hidden, minesweeper.getHiddenSafeCount()); // A flag does not uncover the cell
+        minesweeper.makeMove("0", "1", "F");
+        minesweeper.makeMove("0", "1", "G");
+        assertEquals(0, minesweeper.getFlagCount());
+        assertEquals(hidden - 1, minesweeper.getHiddenSafeCount());
+        minesweeper.makeMove("0", "0", "G");
+        assertEquals(1, minesweeper.getRevealedMineCount());
+        minesweeper.undoMove(0, 1, false);
+        assertEquals(hidden, minesweeper.getHiddenSafeCount());
+    }
+
+    /**
+     * Tests that guessing an empty cell uncovers the empty area around it but never a mine.
+     */
+    @Test
+    public void testCascadeReveal() {
+        minesweeper.makeMove("3", "3", "G"); // An empty cell in the bottom right corner
+        CellChanges changes = minesweeper.getLastChanges();
+        assertTrue(changes.size() > 1);
+        assertEquals("-", minesweeper.getCellState(4, 4));
+        assertEquals("1", minesweeper.getCellState(2, 3));
+        for (int i = 0; i < changes.size(); i++) {
+            assertNotEquals("M", minesweeper.getCellState(changes.getRow(i), changes.getCol(i)));
+        }
+        assertEquals("", minesweeper.getCellState(4, 0)); // The mine stays hidden
+    }
+
+    /**
+     * Tests that the typed moves give the same results as the text moves.
+     */
+    @Test
+    public void testTypedMoves() {
+        assertEquals(MoveResult.FLAGGED, minesweeper.makeMove(0, 0, MoveAction.FLAG));
+        assertEquals(MoveResult.FLAGGED_CELL_GUESSED, minesweeper.makeMove(0, 0, MoveAction.GUESS));
+        assertEquals(MoveResult.UNFLAGGED, minesweeper.makeMove(0, 0, MoveAction.FLAG));
+        assertEquals(MoveResult.MINE_HIT, minesweeper.makeMove(0, 0, MoveAction.GUESS));
+        assertEquals("You have lost one life. \nNew life total: 2", MoveResult.MINE_HIT.getMessage(minesweeper.getLives()));
+        assertEquals(MoveResult.SAFE, minesweeper.makeMove(0, 1, MoveAction.GUESS));
+        assertEquals(MoveResult.ALREADY_REVEALED, minesweeper.makeMove(0, 1, MoveAction.FLAG));
+        assertEquals("This method it not a permitted option", minesweeper.makeMove("4", "4", "X"));
+    }
+
+    /**
+     * Tests that a batch of moves stops when the game ends and tells the listeners only once.
+     */
+    @Test
+    public void testBatchMoves() {
+        int[] calls = new int[1];
+        int[] cells = new int[1];
+        minesweeper.addBoardListener(changes -> {
+            calls[0]++;
+            cells[0] = changes.size();
+        });
+        MoveResult[] results = minesweeper.makeMoves(
+            new int[] {0, 0, 1, 0, 4, 2},
+            new int[] {1, 0, 4, 4, 0, 2},
+            new MoveAction[] {MoveAction.GUESS, MoveAction.FLAG, MoveAction.GUESS, MoveAction.GUESS, MoveAction.GUESS, MoveAction.GUESS});
+        assertEquals(5, results.length); // The fifth move hits the third mine and ends the game
+        assertEquals(MoveResult.SAFE, results[0]);
+        assertEquals(MoveResult.FLAGGED, results[1]);
+        assertEquals(MoveResult.MINE_HIT, results[4]);
+        assertEquals("lost", minesweeper.checkWin());
+        assertEquals("", minesweeper.getCellState(2, 2)); // The last move was never made
+        assertEquals(1, calls[0]);
+        assertEquals(5, cells[0]);
+    }
+
+    /**
+     * Tests that a snapshot plays on its own without changing the game it was taken from.
+     */
+    @Test
+    public void testSnapshot() {
+        minesweeper.makeMove(0, 1, MoveAction.GUESS);
+        Minesweeper copy = minesweeper.snapshot();
+        copy.makeMove(3, 3, MoveAction.GUESS);
+        copy.makeMove(0, 0, MoveAction.GUESS);
+        assertEquals("-", copy.getCellState(4, 4));
+        assertEquals("", minesweeper.getCellState(4, 4));
+        assertEquals("1", copy.getCellState(0, 1));
+        assertEquals(2, copy.getLives());
+        assertEquals(3, minesweeper.getLives());
+        assertEquals(20, minesweeper.getHiddenSafeCount());
+        assertFalse(copy.undo() && copy.undo() && copy.undo()); // The copy cannot undo the moves made before it
+    }
 }
@@ -0,0 +1,10 @@
+/**
+ * The actions a player can take on a cell.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public enum MoveAction {
+    GUESS, // Uncover the cell, "G" in the text interface
+    FLAG // Flag the cell or remove its flag, "F" in the text interface
+}
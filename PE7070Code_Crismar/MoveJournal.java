@@ -0,0 +1,174 @@
+/**
+ * This class remembers the changes made by every move so they can be undone and redone.
+ * Every changed cell is one long: the index of the cell, what the player saw before and what the player sees after.
+ * The cells of a move are kept between two marker longs holding the number of cells and the lives the move cost,
+ * so a whole cascade is undone in one step, and the markers let the journal be read both backwards and forwards.
+ *
+ * The longs are kept in a ring that grows up to a budget. Once the budget is reached the oldest moves are dropped:
+ * the board as it was after them becomes the checkpoint the journal starts from, and they can no longer be undone.
+ *
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class MoveJournal {
+    private static final long MARKER = 1L << 63; // Marks the first and last long of a move
+    private static final int START_CAPACITY = 64; // Longs in a new ring, most games never need more
+    private static final int CELL_BITS = 32; // The index of a cell is in the low 32 bits of its long
+
+    private final int budget; // The most longs kept
+    private long[] records; // The ring, its length is always a power of two
+    private long first; // Position of the oldest long kept, positions only grow and wrap around the ring
+    private long cursor; // Position after the last move that has not been undone
+    private long end; // Position after the last move that can be redone
+
+    /**
+     * Creates an empty journal.
+     * @param budget the most longs kept, every move takes one per changed cell plus two
+     */
+    public MoveJournal(int budget) {
+        if (budget < START_CAPACITY) {
+            throw new IllegalArgumentException("The budget must be at least " + START_CAPACITY);
+        }
+        this.budget = Integer.highestOneBit(budget);
+        this.records = new long[START_CAPACITY];
+    }
+
+    /**
+     * Adds a move to the journal. The moves that could be redone are forgotten.
+     * A move larger than the whole budget cannot be kept, then the journal is emptied
+     * and the board after the move becomes the checkpoint.
+     * @param board the board, already changed by the move
+     * @param changes the cells changed by the move
+     * @param previous what the player saw in every changed cell before the move
+     * @param livesDelta the lives won or lost by the move
+     */
+    public void record(PackedBoard board, CellChanges changes, int previous, int livesDelta) {
+        int span = changes.size();
+        if (span == 0 && livesDelta == 0) {
+            return; // Nothing happened
+        }
+        end = cursor;
+        long needed = span + 2L;
+        if (needed > budget) {
+            clear();
+            return;
+        }
+        makeRoom(needed);
+        long marker = MARKER | (livesDelta & 0xFFL) << CELL_BITS | span;
+        put(cursor++, marker);
+        for (int i = 0; i < span; i++) {
+            int index = changes.getIndex(i);
+            put(cursor++, index & 0xFFFFFFFFL | (long) previous << CELL_BITS | (long) board.getPlayer(index) << CELL_BITS + 4);
+        }
+        put(cursor++, marker);
+        end = cursor;
+    }
+
+    /**
+     * @return true if there is a move to undo
+     */
+    public boolean canUndo() {
+        return cursor > first;
+    }
+
+    /**
+     * @return true if there is an undone move to redo
+     */
+    public boolean canRedo() {
+        return end > cursor;
+    }
+
+    /**
+     * Puts back the cells changed by the last move. The cells are put back in the opposite order,
+     * so a cell changed twice by the same move ends up as it was before the move.
+     * @param board the board to change
+     * @param changes the list the changed cells are added to
+     * @return the lives the move had won or lost, to be taken back by the caller
+     */
+    public int undo(PackedBoard board, CellChanges changes) {
+        if (!canUndo()) {
+            throw new IllegalStateException("There is no move to undo");
+        }
+        long marker = get(cursor - 1);
+        long start = cursor - span(marker) - 2;
+        for (long position = cursor - 2; position > start; position--) {
+            long record = get(position);
+            board.setPlayer((int) record, (int) (record >>> CELL_BITS) & 0xF);
+            changes.add((int) record);
+        }
+        cursor = start;
+        return (byte) (marker >>> CELL_BITS);
+    }
+
+    /**
+     * Applies again the last move that was undone.
+     * @param board the board to change
+     * @param changes the list the changed cells are added to
+     * @return the lives the move won or lost, to be applied by the caller
+     */
+    public int redo(PackedBoard board, CellChanges changes) {
+        if (!canRedo()) {
+            throw new IllegalStateException("There is no move to redo");
+        }
+        long marker = get(cursor);
+        long last = cursor + span(marker);
+        for (long position = cursor + 1; position <= last; position++) {
+            long record = get(position);
+            board.setPlayer((int) record, (int) (record >>> CELL_BITS + 4) & 0xF);
+            changes.add((int) record);
+        }
+        cursor = last + 2;
+        return (byte) (marker >>> CELL_BITS);
+    }
+
+    /**
+     * Forgets every move, the board as it is now becomes the checkpoint.
+     */
+    public void clear() {
+        first = cursor = end = 0;
+    }
+
+    /**
+     * @return the number of longs kept, including the moves that can be redone
+     */
+    public long size() {
+        return end - first;
+    }
+
+    /**
+     * Makes space for a new move, growing the ring while it is below the budget
+     * and then dropping the oldest moves.
+     * @param needed the longs the move takes
+     */
+    private void makeRoom(long needed) {
+        while (cursor - first + needed > records.length) {
+            if (records.length < budget) {
+                grow();
+            } else {
+                first += span(get(first)) + 2;
+            }
+        }
+    }
+
+    // Doubles the ring, every long keeps its position
+    private void grow() {
+        long[] bigger = new long[records.length * 2];
+        for (long position = first; position < cursor; position++) {
+            bigger[(int) (position & bigger.length - 1)] = get(position);
+        }
+        records = bigger;
+    }
+
+    // The number of cells of a move, read from one of its markers
+    private static int span(long marker) {
+        return (int) marker;
+    }
+
+    private long get(long position) {
+        return records[(int) (position & records.length - 1)];
+    }
+
+    private void put(long position, long value) {
+        records[(int) (position & records.length - 1)] = value;
+    }
+}
@@ -0,0 +1,73 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The test class MoveJournalTest is used to test the functionality of MoveJournal class.
+ *
+ * @version 1.0
+ */
+public class MoveJournalTest {
+
+    @Test
+    //Tests that undo puts back a whole cascade and a lost life, and that redo applies them again
+    public void testUndoRedoCascade() {
+        Minesweeper game = new Minesweeper();
+        game.makeMove(0, 0, MoveAction.FLAG);
+        game.makeMove(3, 3, MoveAction.GUESS); // Uncovers the empty corner
+        int uncovered = game.getLastChanges().size();
+        game.makeMove(0, 4, MoveAction.GUESS); // A mine
+        assertEquals(2, game.getLives());
+
+        assertTrue(game.undo());
+        assertEquals(3, game.getLives());
+        assertEquals("", game.getCellState(0, 4));
+        assertTrue(game.undo());
+        assertEquals(uncovered, game.getLastChanges().size());
+        assertEquals("", game.getCellState(4, 4));
+        assertEquals(21, game.getHiddenSafeCount());
+        assertEquals("?", game.getCellState(0, 0)); // The flag was not part of the cascade
+
+        assertTrue(game.redo());
+        assertEquals("-", game.getCellState(4, 4));
+        game.makeMove(1, 4, MoveAction.FLAG); // A new move forgets the undone mine
+        assertFalse(game.redo());
+        assertTrue(game.undo());
+        assertTrue(game.undo());
+        assertTrue(game.undo());
+        assertEquals("", game.getCellState(0, 0));
+        assertFalse(game.undo());
+    }
+
+    @Test
+    //Tests that the oldest moves are dropped once the budget is reached and the newest can still be undone
+    public void testBudget() {
+        PackedBoard board = new PackedBoard(20, 20);
+        MoveJournal journal = new MoveJournal(64);
+        CellChanges changes = new CellChanges(20);
+        for (int index = 0; index < 400; index++) {
+            changes.clear();
+            changes.add(index);
+            board.setPlayer(index, PackedBoard.FLAGGED);
+            journal.record(board, changes, PackedBoard.HIDDEN, 0);
+            assertTrue(journal.size() <= 64);
+        }
+        int undone = 0;
+        while (journal.canUndo()) {
+            changes.clear();
+            journal.undo(board, changes);
+            assertEquals(399 - undone, changes.getIndex(0));
+            undone++;
+        }
+        assertEquals(21, undone); // Three longs per move fit 21 times in 64
+        assertEquals(PackedBoard.FLAGGED, board.getPlayer(378)); // Before the checkpoint
+        assertEquals(PackedBoard.HIDDEN, board.getPlayer(379));
+
+        changes.clear();
+        for (int index = 0; index < 100; index++) {
+            changes.add(index);
+        }
+        journal.record(board, changes, PackedBoard.HIDDEN, 0); // Too large for the budget
+        assertFalse(journal.canUndo());
+        assertFalse(journal.canRedo());
+    }
+}
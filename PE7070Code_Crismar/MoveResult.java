@@ -0,0 +1,32 @@
+/**
+ * The possible results of a move.
+ * The message shown to the player is only built when getMessage is called,
+ * so callers that do not display it (bots, the solver, the benchmarks) pay nothing for it.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public enum MoveResult {
+    FLAGGED("Cell flagged."),
+    UNFLAGGED("Cell not flagged."),
+    FLAGGED_CELL_GUESSED("You need to unflag this cell in order to guess."),
+    ALREADY_REVEALED("This cell has already been revealed."),
+    MINE_HIT("You have lost one life. \nNew life total: "),
+    SAFE("Good move, keep guessing!"),
+    NOT_PERMITTED("This method it not a permitted option");
+
+    private final String message; // Text shown to the player
+
+    MoveResult(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Builds the message shown to the player for this result.
+     * @param lives the lives left after the move, added to the message when a mine was hit
+     * @return the message
+     */
+    public String getMessage(int lives) {
+        return this == MINE_HIT ? message + lives : message;
+    }
+}
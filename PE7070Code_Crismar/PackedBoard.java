@@ -0,0 +1,350 @@
+import java.util.Arrays;
+
+/**
+ * This class stores the whole game board in bytes.
+ * Every cell uses a single byte: the low four bits hold the solution (what is really
+ * under the cell) and the high four bits hold what the player can currently see.
+ * This replaces the old String[][] solution grid and the Slot[][] player grid,
+ * so a cell costs one byte instead of several objects.
+ *
+ * The bytes are kept in pages of PAGE_SIZE cells so a board can be forked cheaply:
+ * the fork shares every page with the board it came from, and a page is only copied
+ * by the first of the two that writes to it (copy on write).
+ *
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class PackedBoard {
+    // Cell codes, used both for the solution and for the player view
+    public static final int MINE = 9; // A mine, shown as "M"
+    public static final int BLANK = 10; // An empty space, shown as "-"
+    public static final int HIDDEN = 11; // A cell the player has not uncovered yet, shown as ""
+    public static final int FLAGGED = 12; // A cell the player has flagged, shown as "?"
+    // The digits 0 to 8 use their own value as the code
+
+    private static final int SOLUTION_MASK = 0x0F; // Low nibble holds the solution
+    private static final int PLAYER_SHIFT = 4; // High nibble holds the player view
+    private static final int PAGE_BITS = 12; // A page holds 4096 cells
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final String[] TEXT = {
+        "0", "1", "2", "3", "4", "5", "6", "7", "8", "M", "-", "", "?"
+    }; // The text shown for each code, indexed by the code itself
+
+    private final int rows; // Number of rows in the board
+    private final int cols; // Number of columns in the board
+    private final int size; // Number of cells in the board
+    private byte[][] pages; // One byte per cell, row after row, cut into pages
+    private boolean[] owned; // Pages only this board uses, so they can be written without a copy
+    private boolean shared; // True while the array of pages itself is shared with a fork
+    private int hiddenSafe; // Cells without a mine that the player has not uncovered yet, flagged or not
+    private int flags; // Cells the player has flagged
+    private int minesRevealed; // Mines the player has uncovered
+    private int modCount; // Number of changes made to the player view, used to notice changes made behind someone's back
+
+    /**
+     * Creates a new board where every cell is hidden and has a blank solution.
+     * @param rows the number of rows
+     * @param cols the number of columns
+     */
+    public PackedBoard(int rows, int cols) {
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid board size: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.size = rows * cols;
+        this.pages = new byte[(size + PAGE_MASK) >>> PAGE_BITS][];
+        this.owned = new boolean[pages.length];
+        for (int p = 0; p < pages.length; p++) {
+            pages[p] = new byte[Math.min(PAGE_SIZE, size - (p << PAGE_BITS))]; // The last page can be shorter
+            Arrays.fill(pages[p], (byte) (HIDDEN << PLAYER_SHIFT | BLANK));
+            owned[p] = true;
+        }
+        this.hiddenSafe = size; // Every cell starts hidden and without a mine
+    }
+
+    /**
+     * Creates a fork of a board, both share their pages until one of them writes.
+     * @param source the board to fork
+     */
+    private PackedBoard(PackedBoard source) {
+        this.rows = source.rows;
+        this.cols = source.cols;
+        this.size = source.size;
+        this.pages = source.pages;
+        this.owned = source.owned; // Never read while shared is set
+        this.shared = true;
+        this.hiddenSafe = source.hiddenSafe;
+        this.flags = source.flags;
+        this.minesRevealed = source.minesRevealed;
+        this.modCount = source.modCount;
+    }
+
+    /**
+     * Makes an independent copy of the board in constant time.
+     * Nothing is copied until the board or the fork is changed, and then only the pages that change.
+     * @return the fork, it can be changed without changing this board
+     */
+    public PackedBoard fork() {
+        shared = true; // Every page may now be used by both boards
+        return new PackedBoard(this);
+    }
+
+    /**
+     * @return the number of rows in the board
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the number of columns in the board
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * @return the total number of cells in the board
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Turns a row and a column into the position of the cell in the array.
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the index of the cell
+     */
+    public int index(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("Cell out of the board: " + row + ", " + col);
+        }
+        return row * cols + col;
+    }
+
+    /**
+     * Gets what is really under a cell.
+     * @param index the index of the cell
+     * @return the solution code of the cell
+     */
+    public int getSolution(int index) {
+        return cell(index) & SOLUTION_MASK;
+    }
+
+    /**
+     * Sets what is really under a cell, this is used while a level is being built.
+     * @param index the index of the cell
+     * @param code the solution code, a digit, MINE or BLANK
+     */
+    public void setSolution(int index, int code) {
+        byte old = cell(index);
+        byte cell = (byte) (old & ~SOLUTION_MASK | code);
+        writablePage(index)[index & PAGE_MASK] = cell;
+        updateCounters(old, cell);
+    }
+
+    /**
+     * Sets what is really under a cell without updating the running counters.
+     * Different threads can use it at the same time on different cells while a level is
+     * being generated, recount has to be called once they have all finished.
+     * The board must not have been forked.
+     * @param index the index of the cell
+     * @param code the solution code, a digit, MINE or BLANK
+     */
+    void writeSolution(int index, int code) {
+        byte[] page = pages[index >>> PAGE_BITS];
+        page[index & PAGE_MASK] = (byte) (page[index & PAGE_MASK] & ~SOLUTION_MASK | code);
+    }
+
+    /**
+     * Sets what the player sees in a run of cells at once, without updating the running counters.
+     * It is how a saved game is loaded, a page at a time; recount has to be called once every cell is set.
+     * @param start the index of the first cell
+     * @param codes the player codes, one per cell
+     * @param count the number of cells
+     */
+    void writePlayers(int start, byte[] codes, int count) {
+        int done = 0;
+        while (done < count) {
+            int index = start + done;
+            byte[] page = writablePage(index);
+            int offset = index & PAGE_MASK;
+            int run = Math.min(count - done, page.length - offset);
+            for (int i = 0; i < run; i++) {
+                page[offset + i] = (byte) (codes[done + i] << PLAYER_SHIFT | page[offset + i] & SOLUTION_MASK);
+            }
+            done += run;
+        }
+        modCount++;
+    }
+
+    /**
+     * Works out the running counters again from every cell of the board.
+     * It is only needed after cells were written with writeSolution or writePlayers.
+     */
+    void recount() {
+        hiddenSafe = 0;
+        flags = 0;
+        minesRevealed = 0;
+        for (byte[] page : pages) {
+            for (byte cell : page) {
+                hiddenSafe += isHiddenSafe(cell);
+                flags += hasPlayer(cell, FLAGGED);
+                minesRevealed += hasPlayer(cell, MINE);
+            }
+        }
+    }
+
+    /**
+     * Gets what the player currently sees in a cell.
+     * @param index the index of the cell
+     * @return the player code of the cell
+     */
+    public int getPlayer(int index) {
+        return (cell(index) & 0xFF) >>> PLAYER_SHIFT;
+    }
+
+    /**
+     * Sets what the player sees in a cell.
+     * @param index the index of the cell
+     * @param code the player code, HIDDEN, FLAGGED or any solution code
+     */
+    public void setPlayer(int index, int code) {
+        byte old = cell(index);
+        byte cell = (byte) (code << PLAYER_SHIFT | old & SOLUTION_MASK);
+        writablePage(index)[index & PAGE_MASK] = cell;
+        updateCounters(old, cell);
+        modCount++;
+    }
+
+    // Reads the byte of a cell
+    private byte cell(int index) {
+        return pages[index >>> PAGE_BITS][index & PAGE_MASK];
+    }
+
+    /**
+     * Gets the page of a cell so it can be written, copying it first if a fork may still use it.
+     * After a fork, the first write takes its own copy of the array of pages, and from then on
+     * every page is copied the first time it is written.
+     * @param index the index of the cell
+     * @return the page holding the cell, used by this board only
+     */
+    private byte[] writablePage(int index) {
+        if (shared) {
+            pages = pages.clone();
+            owned = new boolean[pages.length];
+            shared = false;
+        }
+        int p = index >>> PAGE_BITS;
+        if (!owned[p]) {
+            pages[p] = pages[p].clone();
+            owned[p] = true;
+        }
+        return pages[p];
+    }
+
+    /**
+     * @return the number of times setPlayer has been called on this board
+     */
+    public int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Keeps the running counters right when a cell changes, so the game never has to scan the board.
+     * @param oldCell the byte of the cell before the change
+     * @param newCell the byte of the cell after the change
+     */
+    private void updateCounters(byte oldCell, byte newCell) {
+        hiddenSafe += isHiddenSafe(newCell) - isHiddenSafe(oldCell);
+        flags += hasPlayer(newCell, FLAGGED) - hasPlayer(oldCell, FLAGGED);
+        minesRevealed += hasPlayer(newCell, MINE) - hasPlayer(oldCell, MINE);
+    }
+
+    // Returns 1 if the cell has no mine under it and is still hidden or flagged, 0 otherwise
+    private static int isHiddenSafe(byte cell) {
+        return (cell & SOLUTION_MASK) != MINE && hasPlayer(cell, HIDDEN) + hasPlayer(cell, FLAGGED) == 1 ? 1 : 0;
+    }
+
+    // Returns 1 if the player sees the given code in the cell, 0 otherwise
+    private static int hasPlayer(byte cell, int code) {
+        return (cell & 0xFF) >>> PLAYER_SHIFT == code ? 1 : 0;
+    }
+
+    /**
+     * @return the number of cells without a mine that are still hidden or flagged
+     */
+    public int getHiddenSafeCount() {
+        return hiddenSafe;
+    }
+
+    /**
+     * @return the number of flags placed on the board
+     */
+    public int getFlagCount() {
+        return flags;
+    }
+
+    /**
+     * @return the number of mines the player has uncovered
+     */
+    public int getRevealedMineCount() {
+        return minesRevealed;
+    }
+
+    /**
+     * Checks if there is a mine under a cell.
+     * @param index the index of the cell
+     * @return true if the cell holds a mine
+     */
+    public boolean isMine(int index) {
+        return (cell(index) & SOLUTION_MASK) == MINE;
+    }
+
+    /**
+     * Checks if the player has already uncovered a cell.
+     * @param index the index of the cell
+     * @return true if the cell is neither hidden nor flagged
+     */
+    public boolean isRevealed(int index) {
+        int player = getPlayer(index);
+        return player != HIDDEN && player != FLAGGED;
+    }
+
+    /**
+     * Gives the text that represents a code, the same text the old String boards used.
+     * @param code the cell code
+     * @return the text of the code
+     */
+    public static String toText(int code) {
+        return TEXT[code];
+    }
+
+    /**
+     * Turns the text used by the level and save files back into a code.
+     * @param text the text of the cell
+     * @return the code of the cell
+     * @throws IllegalArgumentException if the text is not a valid cell state
+     */
+    public static int fromText(String text) {
+        if (text.length() == 0) {
+            return HIDDEN;
+        }
+        if (text.length() == 1) {
+            char c = text.charAt(0);
+            if (c >= '0' && c <= '8') {
+                return c - '0';
+            }
+            switch (c) {
+                case 'M': return MINE;
+                case '-': return BLANK;
+                case '?': return FLAGGED;
+                default: break;
+            }
+        }
+        throw new IllegalArgumentException("Invalid cell state: " + text);
+    }
+}
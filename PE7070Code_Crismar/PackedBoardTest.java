@@ -0,0 +1,77 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The test class PackedBoardTest is used to test the functionality of PackedBoard class.
+ * It checks that the solution and the player view of a cell are kept apart inside the same byte.
+ *
+ * @version 1.0
+ */
+public class PackedBoardTest {
+    private PackedBoard board;
+
+    @BeforeEach
+    public void setUp() {
+        board = new PackedBoard(3, 4); // A small board with 3 rows and 4 columns
+    }
+
+    @Test
+    //Tests that a new board has every cell hidden
+    public void testNewBoardIsHidden() {
+        for (int i = 0; i < board.size(); i++) {
+            assertEquals(PackedBoard.HIDDEN, board.getPlayer(i));
+            assertFalse(board.isRevealed(i));
+        }
+    }
+
+    @Test
+    //Tests that changing the player view does not change the solution and the other way round
+    public void testSolutionAndPlayerAreSeparate() {
+        int index = board.index(2, 3);
+        board.setSolution(index, PackedBoard.MINE);
+        board.setPlayer(index, PackedBoard.FLAGGED);
+        assertTrue(board.isMine(index));
+        assertEquals(PackedBoard.FLAGGED, board.getPlayer(index));
+        board.setSolution(index, 7);
+        assertEquals(7, board.getSolution(index));
+        assertEquals(PackedBoard.FLAGGED, board.getPlayer(index));
+    }
+
+    @Test
+    //Tests that every code goes back to the same text used by the level files
+    public void testTextConversion() {
+        String[] states = {"", "?", "M", "-", "0", "5", "8"};
+        for (String state : states) {
+            assertEquals(state, PackedBoard.toText(PackedBoard.fromText(state)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> PackedBoard.fromText("X"));
+    }
+
+    @Test
+    //Tests that cells outside of the board are rejected
+    public void testIndexOutOfBoard() {
+        assertEquals(7, board.index(1, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> board.index(3, 0));
+    }
+
+    @Test
+    //Tests that a fork and its board can both change without seeing each other's changes
+    public void testForkCopyOnWrite() {
+        PackedBoard big = new PackedBoard(100, 100); // Several pages
+        big.setSolution(5000, PackedBoard.MINE);
+        PackedBoard fork = big.fork();
+        PackedBoard forkOfFork = fork.fork();
+        fork.setPlayer(5000, PackedBoard.MINE);
+        big.setPlayer(9999, PackedBoard.FLAGGED);
+        assertEquals(PackedBoard.MINE, fork.getPlayer(5000));
+        assertEquals(PackedBoard.HIDDEN, big.getPlayer(5000));
+        assertEquals(PackedBoard.HIDDEN, forkOfFork.getPlayer(5000));
+        assertEquals(PackedBoard.HIDDEN, fork.getPlayer(9999));
+        assertEquals(1, fork.getRevealedMineCount());
+        assertEquals(0, big.getRevealedMineCount());
+        assertEquals(1, big.getFlagCount());
+        assertEquals(0, forkOfFork.getFlagCount());
+        assertTrue(forkOfFork.isMine(5000));
+    }
+}
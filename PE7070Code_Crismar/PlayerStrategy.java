@@ -0,0 +1,45 @@
+/**
+ * This interface is implemented by the players used by the SimulationRunner.
+ * A strategy only picks the next move, the runner makes it, so the time taken by the game
+ * can be measured without the time taken to think.
+ * A move is packed in a long by move(), so picking a move does not create any objects.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public interface PlayerStrategy {
+    long NO_MOVE = -1; // Returned by a strategy that gives up
+
+    /**
+     * Picks the next move of a game. The strategy must not change the game itself.
+     * @param game the game being played, it has not been won or lost yet
+     * @return the move packed by move(), or NO_MOVE to give up
+     */
+    long nextMove(Minesweeper game);
+
+    /**
+     * Packs a move into a long.
+     * @param index the index of the cell in the board
+     * @param action the action
+     * @return the packed move
+     */
+    static long move(int index, MoveAction action) {
+        return (long) index << 1 | action.ordinal();
+    }
+
+    /**
+     * @param move a packed move
+     * @return the index of the cell of the move
+     */
+    static int index(long move) {
+        return (int) (move >>> 1);
+    }
+
+    /**
+     * @param move a packed move
+     * @return the action of the move
+     */
+    static MoveAction action(long move) {
+        return (move & 1) == 0 ? MoveAction.GUESS : MoveAction.FLAG;
+    }
+}
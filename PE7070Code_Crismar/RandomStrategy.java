@@ -0,0 +1,52 @@
+import java.util.SplittableRandom;
+
+/**
+ * This player guesses hidden cells at random, the cheapest player there is.
+ * It is used to load the game engine with as many moves as possible.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class RandomStrategy implements PlayerStrategy {
+    private static final int TRIES = 16; // Random cells tried before looking for a hidden cell in order
+    private final SplittableRandom random;
+
+    /**
+     * Creates the player.
+     * @param seed the seed of its random numbers, the same seed plays the same game the same way
+     */
+    public RandomStrategy(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public long nextMove(Minesweeper game) {
+        int cell = randomHiddenCell(game.getBoard(), random);
+        return cell < 0 ? NO_MOVE : PlayerStrategy.move(cell, MoveAction.GUESS);
+    }
+
+    /**
+     * Picks a hidden cell at random. A few random cells are tried first, then the board is
+     * searched in order from a random cell, so a nearly finished board is still handled.
+     * @param board the board
+     * @param random the random numbers to use
+     * @return the index of a hidden cell, or -1 if there is none
+     */
+    static int randomHiddenCell(PackedBoard board, SplittableRandom random) {
+        int size = board.size();
+        for (int i = 0; i < TRIES; i++) {
+            int cell = random.nextInt(size);
+            if (board.getPlayer(cell) == PackedBoard.HIDDEN) {
+                return cell;
+            }
+        }
+        int start = random.nextInt(size);
+        for (int i = 0; i < size; i++) {
+            int cell = (start + i) % size;
+            if (board.getPlayer(cell) == PackedBoard.HIDDEN) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,420 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * This class writes and reads saved games in a compact binary format, either streamed through NIO channels
+ * or through a memory map of the save file, which is how the GameFileHandler saves and loads.
+ *
+ * A save starts with a header, all numbers big endian:
+ *   int MAGIC, short VERSION, byte bits per cell, byte 0, int lives, int rows, int cols,
+ *   long seed (0 for a level file), short length of the level name, the level name in UTF-8
+ * Then come the cells, row after row, packed with the high bits first:
+ *   with 2 bits a cell is 0 hidden, 1 flagged or 2 uncovered, what the player sees is then the solution of the cell,
+ *   with 4 bits a cell is its PackedBoard player code, used when a cell shows something else than its solution.
+ * The save ends with the CRC32C of every byte before it, so a damaged save is noticed instead of loaded.
+ *
+ * A 5000x5000 board takes about 6MB with 2 bits per cell, instead of the tens of megabytes of the text format.
+ * A map normally stays open until it is garbage collected, and on Windows a file that is still mapped cannot be
+ * moved, replaced or deleted. So every map made here is released before the method returns, through the
+ * Unsafe.invokeCleaner of the JDK. Where the JDK does not allow it, the map is left to the garbage collector.
+ *
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class SaveFormat {
+    static final int MAGIC = 0x4D534156; // "MSAV", the text format never starts with it
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 30; // Bytes in the header before the level name
+    private static final int BUFFER_SIZE = 64 * 1024; // Bytes moved through the channel at a time
+    private static final Object UNSAFE; // The sun.misc.Unsafe of the JDK, null if it cannot be reached
+    private static final Method INVOKE_CLEANER; // Its invokeCleaner, which releases a map at once
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            invokeCleaner = null; // The maps are released when they are garbage collected
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+    // The 2 bit cell codes
+    private static final int HIDDEN = 0;
+    private static final int FLAGGED = 1;
+    private static final int UNCOVERED = 2;
+
+    /**
+     * Writes a game.
+     * @param channel where the save goes, it is not closed
+     * @param game the game to save
+     * @return the number of bytes written
+     * @throws IOException if the channel fails
+     */
+    public static long write(WritableByteChannel channel, Minesweeper game) throws IOException {
+        PackedBoard board = game.getBoard();
+        int bits = bitsPerCell(board);
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        putHeader(buffer, game, bits);
+        long written = buffer.position();
+        int index = 0;
+        while (index < board.size()) {
+            int before = buffer.position();
+            index = encodeCells(board, bits, index, buffer);
+            written += buffer.position() - before;
+            flush(channel, buffer, crc);
+        }
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return written + 4;
+    }
+
+    /**
+     * Writes a game through a memory map of the file, the cells go straight into the pages of the file.
+     * The file is made exactly as long as the save, and the map is forced to the disk before returning.
+     * @param channel the file, open for reading and writing, it is not closed
+     * @param game the game to save
+     * @return the number of bytes written
+     * @throws IOException if the file cannot be mapped
+     */
+    public static long writeMapped(FileChannel channel, Minesweeper game) throws IOException {
+        PackedBoard board = game.getBoard();
+        int bits = bitsPerCell(board);
+        long length = HEADER_SIZE + levelBytes(game.getLevel()).length + cellBytes(board.size(), bits) + 4L;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("The board is too large to save in one map");
+        }
+        channel.truncate(length);
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        try {
+            putHeader(map, game, bits);
+            encodeCells(board, bits, 0, map);
+            CRC32C crc = new CRC32C();
+            crc.update(map.duplicate().flip());
+            map.putInt((int) crc.getValue());
+            map.force();
+        } finally {
+            unmap(map);
+        }
+        return length;
+    }
+
+    /**
+     * Reads a save into a game. The game is reset to the level of the save first.
+     * If the save turns out to be damaged, the game is left as a new game of that level.
+     * @param channel where the save is read from, it is not closed
+     * @param game the game to load into
+     * @return the number of cells loaded
+     * @throws IOException if the channel fails or the save is not valid
+     */
+    public static int read(ReadableByteChannel channel, Minesweeper game) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(2 * BUFFER_SIZE); // Room for the longest level name
+        buffer.flip(); // Empty and ready to be read
+        fill(channel, buffer, HEADER_SIZE);
+        int levelLength = buffer.getShort(buffer.position() + HEADER_SIZE - 2) & 0xFFFF;
+        take(channel, buffer, crc, HEADER_SIZE + levelLength);
+        int bits = startLoad(buffer, game);
+        PackedBoard board = game.getBoard();
+        byte[] codes = new byte[BUFFER_SIZE * (8 / bits)];
+        long remaining = cellBytes(board.size(), bits);
+        int index = 0;
+        while (remaining > 0) {
+            int chunk = (int) Math.min(remaining, BUFFER_SIZE);
+            take(channel, buffer, crc, chunk);
+            remaining -= chunk;
+            index = decodeCells(buffer, chunk, bits, game, index, codes);
+        }
+        int expected = (int) crc.getValue();
+        take(channel, buffer, null, 4);
+        if (buffer.getInt() != expected) {
+            game.resetGame(game.getLevel());
+            throw new IOException("The save is damaged, its checksum does not match");
+        }
+        game.restored();
+        return board.size();
+    }
+
+    /**
+     * Reads a save through a memory map of the file. The checksum is checked before the game is touched,
+     * then the cells are copied from the pages of the file into the board a chunk at a time.
+     * @param channel the file, open for reading, it is not closed
+     * @param game the game to load into
+     * @return the number of cells loaded
+     * @throws IOException if the file cannot be mapped or the save is not valid
+     */
+    public static int readMapped(FileChannel channel, Minesweeper game) throws IOException {
+        long length = channel.size();
+        if (length < HEADER_SIZE + 4) {
+            throw new EOFException("The save ends too early");
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("The save is too large to map");
+        }
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        try {
+            CRC32C crc = new CRC32C();
+            crc.update(map.duplicate().limit((int) length - 4));
+            if ((int) crc.getValue() != map.getInt((int) length - 4)) {
+                throw new IOException("The save is damaged, its checksum does not match");
+            }
+            int levelLength = map.getShort(HEADER_SIZE - 2) & 0xFFFF;
+            if (length < HEADER_SIZE + levelLength + 4L) {
+                throw new EOFException("The save ends too early");
+            }
+            int bits = startLoad(map, game);
+            PackedBoard board = game.getBoard();
+            if (map.remaining() - 4 != cellBytes(board.size(), bits)) {
+                game.resetGame(game.getLevel());
+                throw new IOException("The save does not have one code for every cell");
+            }
+            byte[] codes = new byte[BUFFER_SIZE * (8 / bits)];
+            int index = 0;
+            while (index < board.size()) {
+                index = decodeCells(map, Math.min(map.remaining() - 4, BUFFER_SIZE), bits, game, index, codes);
+            }
+            game.restored();
+            return board.size();
+        } finally {
+            unmap(map);
+        }
+    }
+
+    /**
+     * Releases a map at once instead of when it is garbage collected, so its file can be moved or replaced right after.
+     * The map, and any view of it, must not be used again.
+     * @param map the map
+     */
+    private static void unmap(MappedByteBuffer map) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, map);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Left to the garbage collector
+        }
+    }
+
+    /**
+     * Reads the header of a save and resets the game to its level and lives.
+     * @param buffer the save, its whole header and level name ready to be read
+     * @param game the game to load into
+     * @return the bits per cell of the save
+     * @throws IOException if the header is not valid or does not match the level
+     */
+    private static int startLoad(ByteBuffer buffer, Minesweeper game) throws IOException {
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary save");
+        }
+        short version = buffer.getShort();
+        int bits = buffer.get();
+        buffer.get();
+        if (version != VERSION || (bits != 2 && bits != 4)) {
+            throw new IOException("Unsupported save version " + version + " with " + bits + " bits per cell");
+        }
+        int lives = buffer.getInt();
+        int rows = buffer.getInt();
+        int cols = buffer.getInt();
+        buffer.getLong(); // The seed is also in the name of a generated level
+        byte[] level = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(level);
+        String levelName = new String(level, StandardCharsets.UTF_8);
+
+        game.resetGame(levelName);
+        PackedBoard board = game.getBoard();
+        if (board.getRows() != rows || board.getCols() != cols) {
+            throw new IOException("The save is " + rows + "x" + cols + " but " + levelName + " is "
+                + board.getRows() + "x" + board.getCols());
+        }
+        game.setLives(lives);
+        return bits;
+    }
+
+    // Writes the header of a save
+    private static void putHeader(ByteBuffer buffer, Minesweeper game, int bits) {
+        PackedBoard board = game.getBoard();
+        byte[] level = levelBytes(game.getLevel());
+        buffer.putInt(MAGIC).putShort(VERSION).put((byte) bits).put((byte) 0)
+            .putInt(game.getLives()).putInt(board.getRows()).putInt(board.getCols())
+            .putLong(seed(game.getLevel())).putShort((short) level.length).put(level);
+    }
+
+    private static byte[] levelBytes(String level) {
+        return level.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // The bytes taken by the cells of a board
+    private static long cellBytes(int size, int bits) {
+        int cellsPerByte = 8 / bits;
+        return ((long) size + cellsPerByte - 1) / cellsPerByte;
+    }
+
+    /**
+     * Packs cells into a buffer until the buffer is full or every cell is in.
+     * @param board the board to save
+     * @param bits the bits per cell
+     * @param index the first cell to pack
+     * @param buffer where the packed cells go
+     * @return the index of the first cell not packed yet
+     */
+    private static int encodeCells(PackedBoard board, int bits, int index, ByteBuffer buffer) {
+        int cellsPerByte = 8 / bits;
+        int size = board.size();
+        while (index < size && buffer.hasRemaining()) {
+            int packed = 0;
+            for (int i = 0; i < cellsPerByte; i++) {
+                packed = packed << bits | (index + i < size ? encode(board, index + i, bits) : 0);
+            }
+            buffer.put((byte) packed);
+            index += cellsPerByte;
+        }
+        return Math.min(index, size);
+    }
+
+    /**
+     * Unpacks cells from a buffer and sets them in the game in one go.
+     * @param buffer the packed cells
+     * @param count the number of bytes to unpack
+     * @param bits the bits per cell
+     * @param game the game to load into
+     * @param index the first cell to set
+     * @param codes room for the player codes of every cell unpacked
+     * @return the index of the first cell not set yet
+     * @throws IOException if a code is not valid, the game is then left as a new game
+     */
+    private static int decodeCells(ByteBuffer buffer, int count, int bits, Minesweeper game, int index, byte[] codes)
+            throws IOException {
+        PackedBoard board = game.getBoard();
+        int size = board.size();
+        int mask = (1 << bits) - 1;
+        int cells = 0;
+        for (int b = 0; b < count; b++) {
+            int packed = buffer.get();
+            for (int shift = 8 - bits; shift >= 0 && index + cells < size; shift -= bits, cells++) {
+                int code = decode(board, index + cells, packed >>> shift & mask, bits);
+                if (code < 0) {
+                    game.resetGame(game.getLevel());
+                    throw new IOException("Invalid cell in the save at " + (index + cells));
+                }
+                codes[cells] = (byte) code;
+            }
+        }
+        game.restoreCells(index, codes, cells);
+        return index + cells;
+    }
+
+    /**
+     * Chooses 2 bits per cell when every uncovered cell shows its solution, which is the case
+     * unless cells were set by hand, and 4 bits otherwise.
+     * @param board the board to save
+     * @return the bits per cell
+     */
+    static int bitsPerCell(PackedBoard board) {
+        for (int index = 0; index < board.size(); index++) {
+            if (board.isRevealed(index) && board.getPlayer(index) != board.getSolution(index)) {
+                return 4;
+            }
+        }
+        return 2;
+    }
+
+    // The seed of a generated level, 0 for a level file
+    static long seed(String level) {
+        return LevelGenerator.isGenerated(level) ? LevelGenerator.seedOf(level) : 0;
+    }
+
+    // Turns the player view of a cell into its code in the save
+    private static int encode(PackedBoard board, int index, int bits) {
+        int player = board.getPlayer(index);
+        if (bits == 4) {
+            return player;
+        }
+        return player == PackedBoard.HIDDEN ? HIDDEN : player == PackedBoard.FLAGGED ? FLAGGED : UNCOVERED;
+    }
+
+    // Turns the code of a cell in the save back into its player view, -1 if the code is not valid
+    private static int decode(PackedBoard board, int index, int code, int bits) {
+        if (bits == 4) {
+            return code <= PackedBoard.FLAGGED ? code : -1;
+        }
+        switch (code) {
+            case HIDDEN: return PackedBoard.HIDDEN;
+            case FLAGGED: return PackedBoard.FLAGGED;
+            case UNCOVERED: return board.getSolution(index);
+            default: return -1;
+        }
+    }
+
+    /**
+     * Adds the bytes written into the buffer to the checksum and sends them.
+     * @param channel where the bytes go
+     * @param buffer the bytes, being filled, it is empty and ready to be filled again afterwards
+     * @param crc the checksum
+     */
+    private static void flush(WritableByteChannel channel, ByteBuffer buffer, CRC32C crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer);
+        buffer.rewind();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Makes sure some bytes can be read from the buffer and adds them to the checksum.
+     * @param channel where more bytes come from
+     * @param buffer the bytes, being read
+     * @param crc the checksum, or null for the bytes of the checksum itself
+     * @param count the number of bytes needed, at most the size of the buffer
+     * @throws EOFException if the save ends first
+     */
+    private static void take(ReadableByteChannel channel, ByteBuffer buffer, CRC32C crc, int count) throws IOException {
+        fill(channel, buffer, count);
+        if (crc != null) {
+            int position = buffer.position();
+            int limit = buffer.limit();
+            buffer.limit(position + count);
+            crc.update(buffer);
+            buffer.limit(limit).position(position);
+        }
+    }
+
+    /**
+     * Makes sure some bytes can be read from the buffer, reading more from the channel if needed.
+     * @param channel where more bytes come from
+     * @param buffer the bytes, being read
+     * @param count the number of bytes needed, at most the size of the buffer
+     * @throws EOFException if the save ends first
+     */
+    private static void fill(ReadableByteChannel channel, ByteBuffer buffer, int count) throws IOException {
+        if (buffer.remaining() < count) {
+            buffer.compact();
+            while (buffer.position() < count) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("The save ends too early");
+                }
+            }
+            buffer.flip();
+        }
+    }
+}
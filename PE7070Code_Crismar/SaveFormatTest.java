@@ -0,0 +1,156 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The following tests are meant for the binary save format and the text saves it replaces.
+ * They save generated games, load them into new games and check every cell.
+ * 
+ * @version 1.0
+ */
+public class SaveFormatTest {
+    private final Minesweeper game = new Minesweeper(7, 9, 10, 5);
+    private final File saveFile = new File("Levels/" + game.getLevel() + "saved.txt");
+
+    /**
+     * This method removes the save file after each test.
+     */
+    @AfterEach
+    public void tearDown() {
+        saveFile.delete();
+    }
+
+    // Checks that two games show the same cells and lives
+    private static void assertSameGame(Minesweeper expected, Minesweeper actual) {
+        assertEquals(expected.getLevel(), actual.getLevel());
+        assertEquals(expected.getLives(), actual.getLives());
+        for (int row = 0; row < expected.getRows(); row++) {
+            for (int col = 0; col < expected.getCols(); col++) {
+                assertEquals(expected.getCellState(row, col), actual.getCellState(row, col), row + ", " + col);
+            }
+        }
+    }
+
+    // Plays a few moves so the save holds hidden, flagged and uncovered cells
+    private void play() {
+        game.makeMove(3, 4, MoveAction.GUESS);
+        game.makeMove(0, 8, MoveAction.FLAG);
+        game.makeMove(6, 0, MoveAction.GUESS);
+        game.setLives(2);
+    }
+
+    /**
+     * Tests that a played game is saved with 2 bits per cell and loads back the same.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        play();
+        assertEquals(2, SaveFormat.bitsPerCell(game.getBoard()));
+        GameFileHandler.saveGame(game);
+        assertEquals(SaveFormat.HEADER_SIZE + game.getLevel().length() + 16 + 4, saveFile.length()); // 63 cells in 16 bytes
+        Minesweeper loaded = new Minesweeper();
+        assertEquals(63, GameFileHandler.loadGame(game.getLevel(), loaded));
+        assertSameGame(game, loaded);
+        assertFalse(loaded.undo()); // A loaded game has no moves to undo
+    }
+
+    /**
+     * Tests that a cell set by hand to something else than its solution is saved with 4 bits per cell.
+     */
+    @Test
+    public void testAssignedCells() throws IOException {
+        play();
+        new Assign(game, 6, 8, "M");
+        assertEquals(4, SaveFormat.bitsPerCell(game.getBoard()));
+        GameFileHandler.saveGame(game);
+        Minesweeper loaded = new Minesweeper();
+        GameFileHandler.loadGame(game.getLevel(), loaded);
+        assertSameGame(game, loaded);
+    }
+
+    /**
+     * Tests that a save streamed through a channel reads back the same as one written through a map,
+     * and that a shorter save written over a longer one leaves nothing of it behind.
+     */
+    @Test
+    public void testStreamedSave() throws IOException {
+        play();
+        new Assign(game, 6, 8, "M");
+        GameFileHandler.saveGame(game); // 4 bits per cell
+        new Assign(game, 6, 8, "");
+        GameFileHandler.saveGame(game); // 2 bits per cell, over the longer file
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long written = SaveFormat.write(Channels.newChannel(bytes), game);
+        assertEquals(written, bytes.size());
+        assertEquals(written, saveFile.length());
+        Minesweeper streamed = new Minesweeper();
+        SaveFormat.read(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())), streamed);
+        assertSameGame(game, streamed);
+        assertEquals(game.getHiddenSafeCount(), streamed.getHiddenSafeCount());
+        assertEquals(game.getFlagCount(), streamed.getFlagCount());
+        Minesweeper mapped = new Minesweeper();
+        GameFileHandler.loadGame(game.getLevel(), mapped);
+        assertSameGame(game, mapped);
+    }
+
+    /**
+     * Tests that a snapshot saved while the game goes on holds the board from when it was taken,
+     * and that the save replaces the old one without leaving its temporary file behind.
+     */
+    @Test
+    public void testSnapshotSave() throws IOException {
+        play();
+        GameFileHandler.saveGame(game); // The old save, replaced below
+        Minesweeper copy = game.snapshot();
+        game.makeMove(6, 8, MoveAction.FLAG); // A move after the snapshot
+        GameFileHandler.saveGame(copy);
+        assertFalse(new File(saveFile.getPath() + ".tmp").exists());
+        Minesweeper loaded = new Minesweeper();
+        GameFileHandler.loadGame(copy.getLevel(), loaded);
+        assertSameGame(copy, loaded);
+        assertNotEquals(game.getCellState(6, 8), loaded.getCellState(6, 8));
+    }
+
+    /**
+     * Tests that a damaged save is refused instead of loaded.
+     */
+    @Test
+    public void testDamagedSave() throws IOException {
+        play();
+        GameFileHandler.saveGame(game);
+        try (RandomAccessFile file = new RandomAccessFile(saveFile, "rw")) {
+            file.seek(file.length() - 6);
+            int cell = file.read();
+            file.seek(file.length() - 6);
+            file.write(cell ^ 0x10);
+        }
+        Minesweeper loaded = new Minesweeper();
+        assertThrows(IOException.class, () -> GameFileHandler.loadGame(game.getLevel(), loaded));
+    }
+
+    /**
+     * Tests that a text save still loads, with the hidden cells at the end of a row kept in their columns.
+     */
+    @Test
+    public void testTextFallback() throws IOException {
+        play();
+        GameFileHandler.saveGame(game.getMoves(), game.getLevel(), game.getLives());
+        Minesweeper loaded = new Minesweeper();
+        assertEquals(63, GameFileHandler.loadGame(game.getLevel(), loaded));
+        assertSameGame(game, loaded);
+        try (FileWriter writer = new FileWriter(saveFile)) {
+            writer.write(game.getLevel() + "\n3\n  ?  \n"); // Four cells, the last one hidden
+        }
+        assertEquals(4, GameFileHandler.loadGame(game.getLevel()).get(2).length);
+        GameFileHandler.loadGame(game.getLevel(), loaded);
+        assertEquals("?", loaded.getCellState(0, 2));
+        assertEquals(3, loaded.getLives());
+    }
+}
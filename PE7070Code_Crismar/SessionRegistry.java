@@ -0,0 +1,285 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * This class hosts many games at the same time, each in a GameSession found by its id.
+ * The sessions are kept in a ConcurrentHashMap, so finding a session takes no lock and adding
+ * or removing one only locks a small part of the map. Moves only lock their own session.
+ *
+ * Sessions that have not been used for the idle timeout are removed by evictIdle, which can be run
+ * on a background thread with startEviction. The memory of all the games together is kept under a cap,
+ * checked from the size of the board before a game is built: when a new game would go over it,
+ * the sessions used least recently are removed first, and if that is not enough the new game is refused.
+ * The sessions are sorted by their last use once, and that order is then used by the next games
+ * until it runs out, so a busy registry does not sort every session for every new game.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class SessionRegistry implements AutoCloseable {
+    private final ConcurrentHashMap<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong(); // Memory of every session, as estimated by GameSession
+    private final long maxBytes; // The memory cap
+    private final long idleNanos; // Time without a use after which a session is removed
+    private final LongSupplier clock; // Gives the time in nanoseconds
+    private final Object evictionLock = new Object(); // Held while removing sessions to make room
+    private long[] candidateIds = new long[0]; // Sessions from the oldest to the newest use at the last sort
+    private long[] candidateAccess = new long[0]; // Their last use at that time
+    private int nextCandidate; // The next one to remove
+    private ScheduledExecutorService evictor; // Runs evictIdle, null until startEviction is called
+
+    /**
+     * Creates an empty registry.
+     * @param maxBytes the most memory the games can take together
+     * @param idleTimeoutMillis the time without a use after which a session is removed
+     */
+    public SessionRegistry(long maxBytes, long idleTimeoutMillis) {
+        this(maxBytes, TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis), System::nanoTime);
+    }
+
+    /**
+     * Creates an empty registry with its own clock, for the tests.
+     * @param maxBytes the most memory the games can take together
+     * @param idleNanos the time without a use after which a session is removed
+     * @param clock gives the time in nanoseconds
+     */
+    SessionRegistry(long maxBytes, long idleNanos, LongSupplier clock) {
+        this.maxBytes = maxBytes;
+        this.idleNanos = idleNanos;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts a session on a level file or a generated level name.
+     * The size of the board is read from the name or the first line of the file before the game is built.
+     * @param level the level
+     * @return the new session
+     * @throws IllegalStateException if the game does not fit under the memory cap
+     * @throws IllegalArgumentException if the level is not a valid generated level
+     * @throws UncheckedIOException if the level file cannot be read
+     */
+    public GameSession create(String level) {
+        if (LevelGenerator.isGenerated(level)) {
+            LevelGenerator.Description description = LevelGenerator.parse(level);
+            return create(description.getRows(), description.getCols(), description.getMines(), description.getSeed());
+        }
+        int size;
+        try {
+            size = LevelFileParser.readSize(level);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the level " + level, e);
+        }
+        return add(GameSession.estimateBytes((long) size * size), () -> new Minesweeper(level));
+    }
+
+    /**
+     * Starts a session on a generated board.
+     * @param rows the rows of the board
+     * @param cols the columns of the board
+     * @param mines the mines of the board
+     * @param seed the seed of the board
+     * @return the new session
+     * @throws IllegalStateException if the game does not fit under the memory cap
+     */
+    public GameSession create(int rows, int cols, int mines, long seed) {
+        long bytes = GameSession.estimateBytes((long) rows * cols);
+        if (bytes > maxBytes) {
+            throw new IllegalStateException("A " + rows + "x" + cols + " board is larger than the memory cap");
+        }
+        return add(bytes, () -> new Minesweeper(rows, cols, mines, seed));
+    }
+
+    /**
+     * Makes room for a game, builds it and gives it an id.
+     * @param bytes the memory of the game, worked out before it is built
+     * @param builder builds the game
+     * @return the new session
+     */
+    private GameSession add(long bytes, Supplier<Minesweeper> builder) {
+        reserve(bytes);
+        Minesweeper game;
+        try {
+            game = builder.get();
+        } catch (RuntimeException | Error e) {
+            usedBytes.addAndGet(-bytes); // The game was never added
+            throw e;
+        }
+        long id;
+        GameSession session;
+        do {
+            id = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE; // Ids cannot be guessed from each other
+            session = new GameSession(id, game, clock.getAsLong());
+        } while (sessions.putIfAbsent(id, session) != null);
+        return session;
+    }
+
+    /**
+     * Counts the memory of a new game, removing the least recently used sessions if it does not fit.
+     * They are taken in the order of the last sort, skipping the ones used since then,
+     * and every session is only sorted again once that order has run out.
+     * @param bytes the memory of the game
+     */
+    private void reserve(long bytes) {
+        if (usedBytes.addAndGet(bytes) <= maxBytes) {
+            return;
+        }
+        synchronized (evictionLock) {
+            boolean sorted = false;
+            while (usedBytes.get() > maxBytes) {
+                if (nextCandidate == candidateIds.length) {
+                    if (sorted) {
+                        break; // Every session was tried since the sort
+                    }
+                    sortCandidates();
+                    sorted = true;
+                    continue;
+                }
+                GameSession session = sessions.get(candidateIds[nextCandidate]);
+                long access = candidateAccess[nextCandidate++];
+                if (session != null && session.getLastAccess() == access && session.tryClose()) {
+                    removeClosed(session);
+                }
+            }
+        }
+        if (usedBytes.get() > maxBytes) {
+            usedBytes.addAndGet(-bytes);
+            throw new IllegalStateException("No memory left for a new game");
+        }
+    }
+
+    // Puts the ids of every session in the order of their last use, only the ids are kept so no game is held on to
+    private void sortCandidates() {
+        GameSession[] oldest = sessions.values().toArray(new GameSession[0]);
+        long[] access = new long[oldest.length];
+        for (int i = 0; i < oldest.length; i++) {
+            access[i] = oldest[i].getLastAccess(); // Read once, a session can be used while sorting
+        }
+        Integer[] order = new Integer[oldest.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> access[i]));
+        candidateIds = new long[oldest.length];
+        candidateAccess = new long[oldest.length];
+        for (int i = 0; i < order.length; i++) {
+            candidateIds[i] = oldest[order[i]].getId();
+            candidateAccess[i] = access[order[i]];
+        }
+        nextCandidate = 0;
+    }
+
+    /**
+     * Finds a session and notes that it was used.
+     * @param id the id of the session
+     * @return the session, or null if there is no session with that id (it may have been removed)
+     */
+    public GameSession get(long id) {
+        GameSession session = sessions.get(id);
+        if (session != null) {
+            session.touch(clock.getAsLong());
+        }
+        return session;
+    }
+
+    /**
+     * Notes that a session found earlier was used again, for callers that keep hold of a session
+     * instead of finding it by its id for every move.
+     * @param session the session
+     */
+    void touch(GameSession session) {
+        session.touch(clock.getAsLong());
+    }
+
+    /**
+     * Ends a session, waiting for a move in progress to finish.
+     * @param id the id of the session
+     * @return false if there was no session with that id
+     */
+    public boolean remove(long id) {
+        GameSession session = sessions.get(id);
+        if (session == null) {
+            return false;
+        }
+        session.close();
+        return removeClosed(session);
+    }
+
+    // Takes a closed session out of the map and gives back its memory, once
+    private boolean removeClosed(GameSession session) {
+        if (sessions.remove(session.getId(), session)) {
+            usedBytes.addAndGet(-session.getEstimatedBytes());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes every session that has not been used for the idle timeout.
+     * A session in use at that moment is kept.
+     * @return the number of sessions removed
+     */
+    public int evictIdle() {
+        long oldest = clock.getAsLong() - idleNanos;
+        int removed = 0;
+        for (GameSession session : sessions.values()) {
+            if (session.getLastAccess() - oldest < 0 && session.tryClose() && removeClosed(session)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Runs evictIdle on a background thread.
+     * @param periodMillis the time between two runs
+     */
+    public synchronized void startEviction(long periodMillis) {
+        if (evictor == null) {
+            evictor = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "session-eviction");
+                thread.setDaemon(true);
+                return thread;
+            });
+            evictor.scheduleWithFixedDelay(this::evictIdle, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return the number of sessions
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * @return the memory counted for every session together
+     */
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * Stops the background eviction and ends every session.
+     */
+    @Override
+    public synchronized void close() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+            evictor = null;
+        }
+        for (GameSession session : sessions.values()) {
+            session.close();
+            removeClosed(session);
+        }
+    }
+}
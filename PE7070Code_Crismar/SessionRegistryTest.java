@@ -0,0 +1,136 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The following tests are meant for the SessionRegistry and its sessions.
+ * They test finding, removing and evicting sessions, the memory cap and moves made from many threads.
+ * 
+ * @version 1.0
+ */
+public class SessionRegistryTest {
+    private long now; // The clock of the registry, moved by hand
+
+    /**
+     * Tests that a session is found by its id and plays its own game.
+     */
+    @Test
+    public void testCreateAndGet() {
+        SessionRegistry registry = new SessionRegistry(1 << 20, 1000, () -> now);
+        GameSession first = registry.create(8, 8, 10, 1);
+        GameSession second = registry.create(8, 8, 10, 1);
+        assertNotEquals(first.getId(), second.getId());
+        assertSame(first, registry.get(first.getId()));
+        assertEquals(2, registry.size());
+        first.apply(game -> game.makeMove(0, 0, MoveAction.FLAG));
+        assertEquals("?", first.apply(game -> game.getCellState(0, 0)));
+        assertEquals("", second.apply(game -> game.getCellState(0, 0)));
+        assertTrue(registry.remove(first.getId()));
+        assertNull(registry.get(first.getId()));
+        assertThrows(IllegalStateException.class, () -> first.apply(Minesweeper::getLives));
+        assertEquals(second.getEstimatedBytes(), registry.getUsedBytes());
+    }
+
+    /**
+     * Tests that only the sessions not used for the idle timeout are evicted.
+     */
+    @Test
+    public void testEvictIdle() {
+        SessionRegistry registry = new SessionRegistry(1 << 20, 1000, () -> now);
+        GameSession idle = registry.create(8, 8, 10, 1);
+        GameSession used = registry.create(8, 8, 10, 2);
+        now = 800;
+        registry.get(used.getId());
+        now = 1500;
+        assertEquals(1, registry.evictIdle());
+        assertNull(registry.get(idle.getId()));
+        assertNotNull(registry.get(used.getId()));
+    }
+
+    /**
+     * Tests that the least recently used session makes room for a new one, and that a board over the cap is refused.
+     */
+    @Test
+    public void testMemoryCap() {
+        long bytes = GameSession.estimateBytes(new Minesweeper(16, 16, 40, 1));
+        SessionRegistry registry = new SessionRegistry(2 * bytes, 1000, () -> now);
+        GameSession oldest = registry.create(16, 16, 40, 1);
+        now = 1;
+        GameSession newer = registry.create(16, 16, 40, 2);
+        now = 2;
+        registry.get(oldest.getId()); // The first session is now the most recently used
+        GameSession third = registry.create(16, 16, 40, 3);
+        assertEquals(2, registry.size());
+        assertNull(registry.get(newer.getId()));
+        assertNotNull(registry.get(oldest.getId()));
+        assertNotNull(registry.get(third.getId()));
+        assertThrows(IllegalStateException.class, () -> registry.create(100, 100, 1000, 4));
+        assertEquals(2 * bytes, registry.getUsedBytes());
+    }
+
+    /**
+     * Tests that the order of one sort is used by the next new games, skipping a session used since the sort,
+     * and that a level file over the cap is refused from its first line.
+     */
+    @Test
+    public void testEvictionOrder() {
+        long bytes = GameSession.estimateBytes(new Minesweeper(8, 8, 10, 1));
+        SessionRegistry registry = new SessionRegistry(3 * bytes, 1000, () -> now);
+        List<GameSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            now = i;
+            sessions.add(registry.create(8, 8, 10, i));
+        }
+        now = 3;
+        registry.create(8, 8, 10, 3); // Sorts and removes the first session
+        assertNull(registry.get(sessions.get(0).getId()));
+        now = 4;
+        registry.get(sessions.get(1).getId()); // Used after the sort, so it is skipped
+        now = 5;
+        registry.create(8, 8, 10, 4);
+        assertNotNull(registry.get(sessions.get(1).getId()));
+        assertNull(registry.get(sessions.get(2).getId()));
+        assertEquals(3, registry.size());
+        SessionRegistry small = new SessionRegistry(bytes, 1000, () -> now);
+        assertThrows(IllegalStateException.class, () -> small.create("Levels/em3.txt"));
+        assertEquals(0, small.getUsedBytes());
+    }
+
+    /**
+     * Tests that many threads can play the same sessions at the same time without breaking their games.
+     */
+    @Test
+    public void testConcurrentMoves() throws Exception {
+        SessionRegistry registry = new SessionRegistry(1 << 24, 60000);
+        List<GameSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            sessions.add(registry.create(20, 20, 0, i));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t;
+            done.add(pool.submit(() -> {
+                for (int cell = 0; cell < 400; cell++) {
+                    GameSession session = sessions.get((cell + offset) % sessions.size());
+                    int index = cell;
+                    session.apply(game -> game.makeMove(index / 20, index % 20, MoveAction.FLAG));
+                }
+            }));
+        }
+        for (Future<?> future : done) {
+            future.get();
+        }
+        pool.shutdown();
+        for (GameSession session : sessions) {
+            assertEquals(400, (int) session.apply(Minesweeper::getFlagCount)); // Every cell was flagged once, by one of the threads
+        }
+        registry.close();
+        assertEquals(0, registry.size());
+        assertEquals(0, registry.getUsedBytes());
+    }
+}
@@ -0,0 +1,206 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongFunction;
+
+/**
+ * This class plays many games at the same time without any window, to measure how much load the game can take.
+ * Every game is a new Minesweeper on a generated board, played from start to end by its own PlayerStrategy
+ * in its own task. The runner reports the games and moves per second and how long the moves took.
+ * Usage: java SimulationRunner [rows] [cols] [mine density] [games] [random|hints]
+ *
+ * The tasks run on virtual threads when the Java version has them, and on a work-stealing
+ * ForkJoinPool otherwise. The games share nothing, so the only cost of running them together is the CPU.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class SimulationRunner {
+    private final int rows;
+    private final int cols;
+    private final int mines;
+    private final LongFunction<PlayerStrategy> players; // Makes the player of a game from the seed of the game
+
+    /**
+     * Prepares the runner.
+     * @param rows the rows of every board
+     * @param cols the columns of every board
+     * @param mines the mines of every board
+     * @param players makes the player of a game from the seed of the game
+     */
+    public SimulationRunner(int rows, int cols, int mines, LongFunction<PlayerStrategy> players) {
+        this.rows = rows;
+        this.cols = cols;
+        this.mines = mines;
+        this.players = players;
+    }
+
+    /**
+     * Plays a number of games, the seeds of the boards go from 0 to games - 1.
+     * @param games the number of games
+     * @return the results of all the games
+     */
+    public Report run(int games) {
+        ExecutorService executor = newExecutor();
+        try {
+            long start = System.nanoTime();
+            List<Future<Report>> results = new ArrayList<>(games);
+            for (int i = 0; i < games; i++) {
+                long seed = i;
+                results.add(executor.submit(() -> play(seed)));
+            }
+            Report total = new Report();
+            for (Future<Report> result : results) {
+                total.add(result.get());
+            }
+            total.nanos = System.nanoTime() - start;
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The simulation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A game failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Plays one game to the end.
+     * @param seed the seed of the board and of the player
+     * @return the results of the game
+     */
+    Report play(long seed) {
+        Minesweeper game = new Minesweeper(rows, cols, mines, seed);
+        PlayerStrategy player = players.apply(seed);
+        Report report = new Report();
+        long moveLimit = 4L * game.getBoard().size(); // A player that never finishes is stopped
+        while (game.checkWin().equals("continue") && report.moves < moveLimit) {
+            long move = player.nextMove(game);
+            if (move == PlayerStrategy.NO_MOVE) {
+                break;
+            }
+            int index = PlayerStrategy.index(move);
+            long start = System.nanoTime();
+            game.makeMove(index / cols, index % cols, PlayerStrategy.action(move));
+            report.latency.record(System.nanoTime() - start);
+            report.moves++;
+        }
+        String status = game.checkWin();
+        report.games = 1;
+        report.won = status.equals("won") ? 1 : 0;
+        report.lost = status.equals("lost") ? 1 : 0;
+        return report;
+    }
+
+    /**
+     * Creates an executor with one virtual thread per task if the Java version has them (21 and later).
+     * The method is looked up by name so the class still compiles and runs on older versions,
+     * which get a work-stealing pool with one thread per CPU instead.
+     * @return the executor
+     */
+    static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newWorkStealingPool();
+        }
+    }
+
+    /**
+     * The results of one or more games.
+     */
+    public static class Report {
+        private final LatencyHistogram latency = new LatencyHistogram(); // Time taken by every move
+        private long games;
+        private long won;
+        private long lost;
+        private long moves;
+        private long nanos; // Time taken by the whole run
+
+        // Adds the results of other games
+        private void add(Report other) {
+            latency.add(other.latency);
+            games += other.games;
+            won += other.won;
+            lost += other.lost;
+            moves += other.moves;
+        }
+
+        /**
+         * @return the number of games played
+         */
+        public long getGames() {
+            return games;
+        }
+
+        /**
+         * @return the number of games won
+         */
+        public long getWon() {
+            return won;
+        }
+
+        /**
+         * @return the number of games lost, the others were given up or stopped
+         */
+        public long getLost() {
+            return lost;
+        }
+
+        /**
+         * @return the number of moves made
+         */
+        public long getMoves() {
+            return moves;
+        }
+
+        /**
+         * @return the games played per second
+         */
+        public double getGamesPerSecond() {
+            return nanos == 0 ? 0 : games * 1e9 / nanos;
+        }
+
+        /**
+         * @return the moves made per second
+         */
+        public double getMovesPerSecond() {
+            return nanos == 0 ? 0 : moves * 1e9 / nanos;
+        }
+
+        /**
+         * @return the time taken by every move
+         */
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d games (%d won, %d lost), %d moves, %.1f games/s, %.0f moves/s, "
+                + "move latency p50 %d ns, p90 %d ns, p99 %d ns, p99.9 %d ns, max %d ns",
+                games, won, lost, moves, getGamesPerSecond(), getMovesPerSecond(), latency.getPercentile(50),
+                latency.getPercentile(90), latency.getPercentile(99), latency.getPercentile(99.9), latency.getMax());
+        }
+    }
+
+    /**
+     * Runs the simulation.
+     * @param args rows, columns, mine density, number of games and player, all optional
+     */
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int cols = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        double density = args.length > 2 ? Double.parseDouble(args[2]) : 0.2;
+        int games = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        String player = args.length > 4 ? args[4] : "random";
+        LongFunction<PlayerStrategy> players = player.equals("hints") ? HintStrategy::new : RandomStrategy::new;
+        int mines = (int) (rows * (long) cols * density);
+        SimulationRunner runner = new SimulationRunner(rows, cols, mines, players);
+        System.out.println(rows + "x" + cols + ", " + mines + " mines, " + player + " player: " + runner.run(games));
+    }
+}
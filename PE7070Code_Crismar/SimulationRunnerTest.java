@@ -0,0 +1,45 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The test class SimulationRunnerTest is used to test the functionality of SimulationRunner class.
+ *
+ * @version 1.0
+ */
+public class SimulationRunnerTest {
+
+    @Test
+    //Tests that every game is played to the end and every move is timed
+    public void testRunsEveryGame() {
+        SimulationRunner runner = new SimulationRunner(9, 9, 10, RandomStrategy::new);
+        SimulationRunner.Report report = runner.run(50);
+        assertEquals(50, report.getGames());
+        assertEquals(50, report.getWon() + report.getLost()); // A random player always finishes
+        assertEquals(report.getMoves(), report.getLatency().getCount());
+        assertTrue(report.getMovesPerSecond() > 0);
+    }
+
+    @Test
+    //Tests that the same seed plays the same game the same way
+    public void testDeterministic() {
+        SimulationRunner runner = new SimulationRunner(16, 16, 40, HintStrategy::new);
+        SimulationRunner.Report first = runner.play(3);
+        SimulationRunner.Report second = runner.play(3);
+        assertEquals(first.getMoves(), second.getMoves());
+        assertEquals(first.getWon(), second.getWon());
+    }
+
+    @Test
+    //Tests that the percentiles stay within the precision of the buckets
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i * 100L);
+        }
+        assertEquals(10000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        assertEquals(500000, histogram.getPercentile(50), 500000 * 0.07);
+        assertEquals(990000, histogram.getPercentile(99), 990000 * 0.07);
+        assertEquals(1000000, histogram.getPercentile(100));
+    }
+}
@@ -1,5 +1,3 @@
-import java.util.Observable;
-
 /**
  * This class was created to represent a single cell in the Minesweeper game.
  * It keeps track of the position and state. 
@@ -8,10 +6,11 @@ import java.util.Observable;
  * @author Lauren Scott & Mircea-Rafael Crismar
  * @version student final
  */
-public class Slot extends Observable {
+public class Slot {
     private String state; // What is in the cell right now
     private final int row;
     private final int col; // Where the cell is in the game grid
+    private final Minesweeper game; // The game this cell reads from, null for a standalone cell
 
     /**
      * This initializes a new cell with a row, column, and state.
@@ -24,6 +23,22 @@ public class Slot extends Observable {
         this.row = row;
         this.col = col;
         this.state = state;
+        this.game = null;
+    }
+
+    /**
+     * This creates a cell that is only a view of one position of a game's board.
+     * Reading or changing its state reads or changes the board, and changes are passed
+     * to the game's board listeners like any other change.
+     * 
+     * @param game The game that stores the cell
+     * @param row The row number of the cell
+     * @param col The column number of the cell
+     */
+    Slot(Minesweeper game, int row, int col) {
+        this.row = row;
+        this.col = col;
+        this.game = game;
     }
 
     /**
@@ -31,18 +46,22 @@ public class Slot extends Observable {
      * @return The state of the cell as a String
      */
     public String getState() {
+        if (game != null) {
+            return game.getCellState(row, col);
+        }
         return state;
     }
 
     /**
-     * This changes the state of the cell and tells others if it changed.
+     * This changes the state of the cell.
+     * For a cell of a game, the game tells its listeners if the state actually changed.
      * @param state The new state to set for the cell
      */
     public void setState(String state) {
-        if (!this.state.equals(state)) { // Only tell others if the state actually changes
+        if (game != null) {
+            game.assignCell(row, col, PackedBoard.fromText(state));
+        } else {
             this.state = state;
-            setChanged();
-            notifyObservers();//Notifies observers when the state changes
         }
     }
 
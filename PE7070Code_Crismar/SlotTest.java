@@ -44,4 +44,17 @@ public class SlotTest {
     public void testGetCol() {
         assertEquals(2, testSlot.getCol());
     }
+
+    @Test
+    //Tests that changing a slot of a game reaches the game's listeners once, and only if the state changes
+    public void testGameSlotTellsListeners() {
+        Minesweeper game = new Minesweeper();
+        int[] calls = new int[1];
+        game.addBoardListener(changes -> calls[0]++);
+        Slot slot = game.getMoves()[1][2];
+        slot.setState("?");
+        slot.setState("?");
+        assertEquals("?", game.getCellState(1, 2));
+        assertEquals(1, calls[0]);
+    }
 }
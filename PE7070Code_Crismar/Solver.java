@@ -0,0 +1,340 @@
+import java.util.Arrays;
+
+/**
+ * This class plays a game of Minesweeper on its own, using only what the player can see.
+ * It never guesses: it only uncovers cells that are certainly safe and flags cells that are certainly mines,
+ * so it can be used to check that a generated board can be solved without luck.
+ *
+ * Every uncovered number is a constraint: the number of mines still to find around it is the number
+ * minus the mines already known around it. Two rules are used:
+ * - single cell: if no mines are left around a number, all its hidden neighbours are safe;
+ *   if the mines left equal its hidden neighbours, they are all mines.
+ * - subset: if the hidden neighbours of a number A are all neighbours of a number B, the cells of B
+ *   that are not next to A hold exactly (mines left of B - mines left of A) mines.
+ * The counts of hidden neighbours and known mines around every cell are kept up to date from the
+ * cells each move changes, so the board is never scanned again after the solver starts.
+ *
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+public class Solver {
+    private final Minesweeper game; // The game being solved
+    private final PackedBoard board; // The board of the game, only the player view is read
+    private final int rows;
+    private final int cols;
+    private final byte[] hiddenAround; // Hidden cells without a flag around every cell
+    private final byte[] minesAround; // Flagged or uncovered mines around every cell
+    private final int[] pending; // Numbers to check again with the single cell rule
+    private final boolean[] isPending; // Whether a cell is already in pending
+    private int pendingCount;
+    private int[] active; // Numbers that still have hidden neighbours, checked by the subset rule
+    private int activeCount;
+    private long cellsSolved; // Cells uncovered or flagged by the solver
+    private long decisions; // Times a rule found at least one cell
+
+    /**
+     * Prepares the solver for a game, reading the player view once.
+     * @param game the game to solve
+     */
+    public Solver(Minesweeper game) {
+        this.game = game;
+        this.board = game.getBoard();
+        this.rows = board.getRows();
+        this.cols = board.getCols();
+        int size = board.size();
+        this.hiddenAround = new byte[size];
+        this.minesAround = new byte[size];
+        this.pending = new int[size];
+        this.isPending = new boolean[size];
+        this.active = new int[64];
+        for (int index = 0; index < size; index++) {
+            int state = board.getPlayer(index);
+            if (state == PackedBoard.HIDDEN) {
+                forEachNeighbour(index, 1, 0);
+            } else if (state == PackedBoard.FLAGGED || state == PackedBoard.MINE) {
+                forEachNeighbour(index, 0, 1); // Flags are trusted to be mines
+            }
+        }
+        for (int index = 0; index < size; index++) {
+            if (isNumber(index)) {
+                addConstraint(index); // Only once every count is known
+            }
+        }
+    }
+
+    /**
+     * Uncovers a first cell and then solves as far as the rules allow.
+     * @param row the row of the first cell
+     * @param col the column of the first cell
+     * @return the result of the run
+     */
+    public Result solve(int row, int col) {
+        long start = System.nanoTime();
+        if (board.getPlayer(board.index(row, col)) == PackedBoard.HIDDEN) {
+            reveal(board.index(row, col));
+        }
+        return run(start);
+    }
+
+    /**
+     * Solves as far as the rules allow from what is already uncovered.
+     * @return the result of the run
+     */
+    public Result solve() {
+        return run(System.nanoTime());
+    }
+
+    /**
+     * Finds the first empty cell of a board, the cell a player would be given as a safe first click.
+     * It looks at the solution, so it is meant for the tests and the benchmarks, never for the solver itself.
+     * @param board the board
+     * @return the index of the cell, or -1 if the board has no empty cell
+     */
+    public static int findOpening(PackedBoard board) {
+        for (int i = 0; i < board.size(); i++) {
+            if (board.getSolution(i) == PackedBoard.BLANK) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Applies the single cell rule until it finds nothing, then the subset rule, until neither finds anything
+    private Result run(long start) {
+        boolean progress = true;
+        while (progress && game.getLives() > 0) {
+            while (pendingCount > 0) {
+                int index = pending[--pendingCount];
+                isPending[index] = false;
+                applySingleRule(index);
+            }
+            progress = applySubsetRule();
+        }
+        return new Result(game.getHiddenSafeCount() == 0, cellsSolved, decisions, System.nanoTime() - start);
+    }
+
+    // Checks one number with the single cell rule
+    private void applySingleRule(int index) {
+        int hidden = hiddenAround[index];
+        if (hidden == 0) {
+            return;
+        }
+        int left = minesLeft(index);
+        if (left == 0 || left == hidden) {
+            decisions++;
+            actOnNeighbours(index, -1, left != 0);
+        }
+    }
+
+    /**
+     * Runs the subset rule on every number that still has hidden neighbours.
+     * Every check reads the counts as they are at that moment, so the loop can go on
+     * after a move without starting again.
+     * @return true if any cell was uncovered or flagged
+     */
+    private boolean applySubsetRule() {
+        boolean progress = false;
+        int kept = 0;
+        for (int k = 0; k < activeCount; k++) {
+            int a = active[k];
+            if (hiddenAround[a] == 0) {
+                continue; // Solved, it leaves the list
+            }
+            active[kept++] = a;
+            int rowA = a / cols;
+            int colA = a % cols;
+            for (int r = Math.max(rowA - 2, 0); r <= Math.min(rowA + 2, rows - 1); r++) {
+                for (int c = Math.max(colA - 2, 0); c <= Math.min(colA + 2, cols - 1); c++) {
+                    int b = r * cols + c;
+                    if (b == a || hiddenAround[a] == 0 || hiddenAround[b] <= hiddenAround[a] || !isNumber(b)
+                        || !hiddenNeighboursShared(a, b)) {
+                        continue;
+                    }
+                    int extraCells = hiddenAround[b] - hiddenAround[a];
+                    int extraMines = minesLeft(b) - minesLeft(a);
+                    if (extraMines == 0 || extraMines == extraCells) {
+                        decisions++;
+                        actOnNeighbours(b, a, extraMines != 0);
+                        progress = true;
+                    }
+                }
+            }
+        }
+        activeCount = kept;
+        return progress;
+    }
+
+    // Checks that every hidden neighbour of a is also a neighbour of b
+    private boolean hiddenNeighboursShared(int a, int b) {
+        int rowA = a / cols;
+        int colA = a % cols;
+        int rowB = b / cols;
+        int colB = b % cols;
+        for (int r = Math.max(rowA - 1, 0); r <= Math.min(rowA + 1, rows - 1); r++) {
+            for (int c = Math.max(colA - 1, 0); c <= Math.min(colA + 1, cols - 1); c++) {
+                if (board.getPlayer(r * cols + c) == PackedBoard.HIDDEN
+                    && (Math.abs(r - rowB) > 1 || Math.abs(c - colB) > 1)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Uncovers or flags the hidden neighbours of a number.
+     * @param index the number
+     * @param skipNear when not -1, neighbours of this cell are left alone (used by the subset rule)
+     * @param flag true to flag the cells, false to uncover them
+     */
+    private void actOnNeighbours(int index, int skipNear, boolean flag) {
+        int row = index / cols;
+        int col = index % cols;
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                int target = r * cols + c;
+                if (board.getPlayer(target) != PackedBoard.HIDDEN
+                    || skipNear >= 0 && Math.abs(r - skipNear / cols) <= 1 && Math.abs(c - skipNear % cols) <= 1) {
+                    continue;
+                }
+                if (flag) {
+                    game.toggleFlag(target);
+                    applyChanges();
+                } else {
+                    reveal(target);
+                }
+            }
+        }
+    }
+
+    // Uncovers a cell through the game and takes in every cell it changed
+    private void reveal(int index) {
+        game.revealCell(index);
+        applyChanges();
+    }
+
+    // Updates the counts around every cell changed by the last move
+    private void applyChanges() {
+        CellChanges changes = game.getLastChanges();
+        for (int i = 0; i < changes.size(); i++) {
+            int index = changes.getIndex(i);
+            cellsSolved++;
+            int state = board.getPlayer(index);
+            if (state == PackedBoard.FLAGGED || state == PackedBoard.MINE) {
+                forEachNeighbour(index, -1, 1);
+            } else {
+                forEachNeighbour(index, -1, 0);
+                addConstraint(index);
+            }
+        }
+    }
+
+    // Adds the hidden and mine counts to every neighbour of a cell and queues the numbers among them
+    private void forEachNeighbour(int index, int hiddenDelta, int mineDelta) {
+        int row = index / cols;
+        int col = index % cols;
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, cols - 1); c++) {
+                int neighbour = r * cols + c;
+                if (neighbour == index) {
+                    continue;
+                }
+                hiddenAround[neighbour] += hiddenDelta;
+                minesAround[neighbour] += mineDelta;
+                if (hiddenDelta < 0 && isNumber(neighbour)) {
+                    queue(neighbour);
+                }
+            }
+        }
+    }
+
+    // Starts following a newly uncovered number
+    private void addConstraint(int index) {
+        if (hiddenAround[index] == 0) {
+            return;
+        }
+        queue(index);
+        if (activeCount == active.length) {
+            active = Arrays.copyOf(active, activeCount * 2);
+        }
+        active[activeCount++] = index;
+    }
+
+    // Puts a number in the list of numbers to check with the single cell rule
+    private void queue(int index) {
+        if (!isPending[index]) {
+            isPending[index] = true;
+            pending[pendingCount++] = index;
+        }
+    }
+
+    // Checks if a cell shows a number (an empty cell counts as the number 0)
+    private boolean isNumber(int index) {
+        int state = board.getPlayer(index);
+        return state <= 8 || state == PackedBoard.BLANK;
+    }
+
+    // Mines still to find around a number
+    private int minesLeft(int index) {
+        int state = board.getPlayer(index);
+        return (state == PackedBoard.BLANK ? 0 : state) - minesAround[index];
+    }
+
+    /**
+     * The result of a run of the solver.
+     */
+    public static class Result {
+        private final boolean solved;
+        private final long cellsSolved;
+        private final long decisions;
+        private final long nanos;
+
+        Result(boolean solved, long cellsSolved, long decisions, long nanos) {
+            this.solved = solved;
+            this.cellsSolved = cellsSolved;
+            this.decisions = decisions;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return true if every safe cell was uncovered without guessing
+         */
+        public boolean isSolved() {
+            return solved;
+        }
+
+        /**
+         * @return the number of cells uncovered or flagged by the solver
+         */
+        public long getCellsSolved() {
+            return cellsSolved;
+        }
+
+        /**
+         * @return the number of times a rule found at least one cell
+         */
+        public long getDecisions() {
+            return decisions;
+        }
+
+        /**
+         * @return the time the run took, in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return the number of cells solved per second
+         */
+        public double getCellsPerSecond() {
+            return nanos == 0 ? 0 : cellsSolved * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return (solved ? "solved" : "stuck") + ", " + cellsSolved + " cells, " + decisions + " decisions, "
+                + String.format("%.0f cells/s", getCellsPerSecond());
+        }
+    }
+}
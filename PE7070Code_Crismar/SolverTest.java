@@ -0,0 +1,51 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The test class SolverTest is used to test the functionality of Solver class.
+ * It checks that the solver never makes a wrong move and solves boards that need no guessing.
+ *
+ * @version 1.0
+ */
+public class SolverTest {
+
+    @Test
+    //Tests that every cell the solver touches is right: flags only on mines and no mine ever uncovered
+    public void testNoWrongMoves() {
+        for (long seed = 0; seed < 20; seed++) {
+            Minesweeper game = new Minesweeper(30, 40, 150, seed);
+            PackedBoard board = game.getBoard();
+            int start = Solver.findOpening(board);
+            new Solver(game).solve(start / 40, start % 40);
+            assertEquals(3, game.getLives());
+            for (int i = 0; i < board.size(); i++) {
+                if (board.getPlayer(i) == PackedBoard.FLAGGED) {
+                    assertTrue(board.isMine(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    //Tests that a board with no mines is solved from one click
+    public void testEmptyBoard() {
+        Minesweeper game = new Minesweeper(50, 50, 0, 1);
+        Solver.Result result = new Solver(game).solve(10, 10);
+        assertTrue(result.isSolved());
+        assertEquals("won", game.checkWin());
+    }
+
+    @Test
+    //Tests that most easy boards are solved completely
+    public void testSolvesEasyBoards() {
+        int solved = 0;
+        for (long seed = 0; seed < 20; seed++) {
+            Minesweeper game = new Minesweeper(9, 9, 10, seed);
+            int start = Solver.findOpening(game.getBoard());
+            Solver.Result result = new Solver(game).solve(start / 9, start % 9);
+            solved += result.isSolved() ? 1 : 0;
+            assertEquals(result.isSolved(), game.checkWin().equals("won"));
+        }
+        assertTrue(solved >= 10);
+    }
+}
@@ -4,7 +4,6 @@ import java.io.FileWriter;
 import java.io.FileReader;
 import java.io.BufferedWriter;
 import java.io.BufferedReader;
-import java.util.Stack;
 
 /**
  * This class provides a text-based user interface for the player to interact with the game.
@@ -14,7 +13,6 @@ import java.util.Stack;
 public class UI {
     private final Minesweeper thegame; // this is the game model
     private final Scanner reader; // this scanner is used to read the terminal
-    private final Stack<int[]> previousMoves; // this keeps track of all the moves made
 
     /**
      * Constructor for the class UI
@@ -24,7 +22,6 @@ public class UI {
         reader = new Scanner(System.in);
         // this is the user's choice from the menu
         String menuChoice = "";
-        previousMoves = new Stack<>(); // new stack to keep track of moves
 
         while (!menuChoice.equalsIgnoreCase("Q") && thegame.checkWin().equals("continue")) {
             displayGame();
@@ -57,12 +54,12 @@ public class UI {
      */
     public void displayGame() {
         System.out.print("\n\nCol    ");
-        for (int r = 0; r < thegame.getGameSize(); r++) {
+        for (int r = 0; r < thegame.getCols(); r++) {
             System.out.print(r + " ");
         }
-        for (int i = 0; i < thegame.getGameSize(); i++) {
+        for (int i = 0; i < thegame.getRows(); i++) {
             System.out.print("\nRow  " + i);
-            for (int c = 0; c < thegame.getGameSize(); c++) {
+            for (int c = 0; c < thegame.getCols(); c++) {
                 System.out.print(" " + thegame.getCellState(i, c));
             }
         }
@@ -73,7 +70,7 @@ public class UI {
      * Method that displays the menu to the user
      */
     public void menu() {
-        System.out.println("\nPlease select an option: \n" + "[F] Flag a mine\n" + "[G] Guess a square\n" + "[S] Save game\n" + "[L] Load saved game\n" + "[U] Undo move\n" + "[C] Clear game\n" + "[Q] Quit game\n");
+        System.out.println("\nPlease select an option: \n" + "[F] Flag a mine\n" + "[G] Guess a square\n" + "[S] Save game\n" + "[L] Load saved game\n" + "[U] Undo move\n" + "[R] Redo move\n" + "[C] Clear game\n" + "[Q] Quit game\n");
     }
 
     /**
@@ -86,25 +83,21 @@ public class UI {
             int row = getValidCoordinate("row");
             int col = getValidCoordinate("column");
             if (row != -1 && col != -1) {
-                System.out.print(thegame.makeMove(Integer.toString(row), Integer.toString(col), choice));
-                if (previousMoves.isEmpty() || !isSameMove(previousMoves.peek(), row, col)) {
-                    previousMoves.push(new int[]{row, col});
-                }
+                System.out.print(thegame.makeMove(row, col, MoveAction.FLAG).getMessage(thegame.getLives()));
             }
         } else if (choice.equalsIgnoreCase("G")) {
             int row = getValidCoordinate("row");
             int col = getValidCoordinate("column");
             if (row != -1 && col != -1) {
-                System.out.print(thegame.makeMove(Integer.toString(row), Integer.toString(col), choice));
-                if (previousMoves.isEmpty() || !isSameMove(previousMoves.peek(), row, col)) {
-                    previousMoves.push(new int[]{row, col});
-                }
+                System.out.print(thegame.makeMove(row, col, MoveAction.GUESS).getMessage(thegame.getLives()));
                 displayGame(); // Refresh the display after a move
             }
         } else if (choice.equalsIgnoreCase("S")) {
             saveGame();
         } else if (choice.equalsIgnoreCase("U")) {
             undoMove();
+        } else if (choice.equalsIgnoreCase("R")) {
+            redoMove();
         } else if (choice.equalsIgnoreCase("L")) {
             loadGame();
         } else if (choice.equalsIgnoreCase("C")) {
@@ -122,6 +115,7 @@ public class UI {
      */
     private int getValidCoordinate(String type) {
         int coord = -1;
+        int limit = type.equals("row") ? thegame.getRows() : thegame.getCols(); // Boards do not have to be square
         // Prompt the user for the coordinate
         System.out.print("Which " + type + " you want to select? ");
     
@@ -129,8 +123,8 @@ public class UI {
         if (reader.hasNextInt()) {
             coord = reader.nextInt();
             // Validate the coordinate
-            if (coord < 0 || coord >= thegame.getGameSize()) {
-                System.out.println("Invalid " + type + ". You need to input a number between 0 and " + (thegame.getGameSize() - 1));
+            if (coord < 0 || coord >= limit) {
+                System.out.println("Invalid " + type + ". You need to input a number between 0 and " + (limit - 1));
                 coord = -1;
             }
         } else {
@@ -152,8 +146,8 @@ public class UI {
         // Creates a BufferedWriter object named 'writer' to write game state data to the file "gameSaved.txt"
         try (BufferedWriter writer = new BufferedWriter(new FileWriter("gameSaved.txt"))) {
             // Create a double loop that goes through each cell in the game board
-            for (int i = 0; i < thegame.getGameSize(); i++) {
-                for (int j = 0; j < thegame.getGameSize(); j++) {
+            for (int i = 0; i < thegame.getRows(); i++) {
+                for (int j = 0; j < thegame.getCols(); j++) {
                     // Write the state of the cell 
                     writer.write(thegame.getCellState(i, j) + " ");
                 }
@@ -169,24 +163,12 @@ public class UI {
     /**
      * undoMove 
      * This ‘undoMove’ method was created to allow the user to reverse their last move during the game. 
-     * While the user is playing the game each move, they make is added onto a stack. 
-     * A stack is a dynamic data structure that follows the last in first out principle, which means the last move will always 
-     * be on the top. This allows us to remove the last move from the stack and reset the state of that cell to the initial value 
-     * which is “”. After all of this is executed successfully a message is sent to the user, once there are no more items in the 
-     * stack, the user gets an appropriate message.
+     * The game keeps a journal of every move, so the last move is undone with every cell it changed,
+     * a flag is put back and a life lost on a mine is given back. After all of this is executed successfully
+     * a message is sent to the user, once there are no more moves to undo, the user gets an appropriate message.
      */
     public void undoMove() {
-        if (!previousMoves.isEmpty()) {
-            // Removes the last element from the stack
-            int[] lastElement = previousMoves.pop();
-            // Saves the coordinates of it
-            int row = lastElement[0];
-            int col = lastElement[1];
-    
-            // Reset the state of the cell to its initial state
-            String initialState = "";
-            new Assign(thegame, row, col, initialState);
-    
+        if (thegame.undo()) {
             // Confirm that the previous move was removed
             System.out.println("Previous move was removed.");
         } else {
@@ -195,6 +177,17 @@ public class UI {
         }
     }
 
+    /**
+     * This method makes again the last move that was undone, as long as no other move was made since.
+     */
+    public void redoMove() {
+        if (thegame.redo()) {
+            System.out.println("Move redone.");
+        } else {
+            System.out.println("No moves to redo.");
+        }
+    }
+
     /**
      * loadGame
      * To be implemented by student - this method should load a previous saved game
@@ -205,17 +198,18 @@ public class UI {
      */
     public void loadGame() {
         try (BufferedReader reader = new BufferedReader(new FileReader("gameSaved.txt"))) {
-            int gameSize = thegame.getGameSize();
+            int gameSize = thegame.getRows();
             String line;
             int i = 0;
 
             while ((line = reader.readLine()) != null && i < gameSize) {
                 String[] states = line.split(" ");
-                for (int j = 0; j < gameSize && j < states.length; j++) {
+                for (int j = 0; j < thegame.getCols() && j < states.length; j++) {
                     new Assign(thegame, i, j, states[j]);
                 }
                 i++;
             }
+            thegame.clearHistory(); // The loaded cells were not moves, they cannot be undone
 
             if (i == gameSize) {
                 System.out.println("Game loaded from saved file.");
@@ -232,17 +226,17 @@ public class UI {
      * clearGame
      * To be implemented by student - this method should clear the game board and any record of moves, to reset the game
      * The method creates a double loop to go through each cell of the board and resets the states of them to the initial value
-     * The stack of moves is also cleared followed by a success message.
+     * The history of moves is also cleared followed by a success message.
      */
     public void clearGame() {
         // Resets every cell in the game to the initial state
-        for (int i = 0; i < thegame.getGameSize(); i++) {
-            for (int j = 0; j < thegame.getGameSize(); j++) {
+        for (int i = 0; i < thegame.getRows(); i++) {
+            for (int j = 0; j < thegame.getCols(); j++) {
                 new Assign(thegame, i, j, "");
             }
         }
-        // Resets the stack of moves
-        previousMoves.clear();
+        // Forgets the moves made
+        thegame.clearHistory();
         System.out.println("Game restarted successfully.");
     }
 
@@ -253,15 +247,4 @@ public class UI {
     public static void main(String[] args) {
         new UI();
     }
-
-    /**
-     * Method to check if the current move is the same as the previous move
-     * @param lastMove The last move made
-     * @param row The row of the current move
-     * @param col The column of the current move
-     * @return true if the current move is the same as the last move, false otherwise
-     */
-    private boolean isSameMove(int[] lastMove, int row, int col) {
-        return lastMove[0] == row && lastMove[1] == col;
-    }
 } // end of class
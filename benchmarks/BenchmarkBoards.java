@@ -0,0 +1,67 @@
+package minesweeper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * This class prepares the boards used by the benchmarks.
+ * Every benchmark uses the same seed, so the same size and density always give the same board.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+final class BenchmarkBoards {
+    static final long SEED = 1;
+
+    private BenchmarkBoards() {
+    }
+
+    /**
+     * @param size the rows and columns of the board
+     * @param density the share of cells holding a mine
+     * @return the number of mines, at least one
+     */
+    static int mines(int size, double density) {
+        return Math.max(1, (int) (size * (long) size * density));
+    }
+
+    /**
+     * Writes a board in the format of the Levels/emN.txt files: the size, then one "row col state" line per cell.
+     * @param board the board
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    static void writeLevelFile(PackedBoard board, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write(Integer.toString(board.getRows()));
+            writer.newLine();
+            for (int i = 0; i < board.getRows(); i++) {
+                for (int j = 0; j < board.getCols(); j++) {
+                    writer.write(i + " " + j + " " + PackedBoard.toText(board.getSolution(board.index(i, j))));
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds up to a number of cells showing a digit, guessing one of them uncovers that cell only.
+     * @param board the board
+     * @param limit the most cells to find
+     * @return the indexes of the cells
+     */
+    static int[] numberCells(PackedBoard board, int limit) {
+        int[] cells = new int[limit];
+        int found = 0;
+        for (int i = 0; i < board.size() && found < limit; i++) {
+            int code = board.getSolution(i);
+            if (code >= 1 && code <= 8) {
+                cells[found++] = i;
+            }
+        }
+        return Arrays.copyOf(cells, found);
+    }
+}
@@ -0,0 +1,97 @@
+package minesweeper;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures the moves of the game engine.
+ * The guesses are made on a fresh snapshot of the game taken before every call and outside the timing,
+ * so every call starts from the same board and only makeMove is measured.
+ * Taking the snapshot is measured on its own.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class EngineBenchmark {
+    @Param({"5", "100", "1000", "5000"})
+    public int size;
+
+    @Param({"0.1", "0.2"})
+    public double density;
+
+    private Minesweeper game; // Nothing is ever uncovered on this game
+    private int[] numbers; // Cells showing a digit, guessing them uncovers a single cell
+    private int opening; // An empty cell, guessing it uncovers the whole area around it
+    private int next; // Position in numbers of the next move
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = new Minesweeper(size, size, BenchmarkBoards.mines(size, density), BenchmarkBoards.SEED);
+        numbers = BenchmarkBoards.numberCells(game.getBoard(), 4096);
+        opening = Math.max(Solver.findOpening(game.getBoard()), 0);
+    }
+
+    // The next cell showing a digit
+    private int nextCell() {
+        int cell = numbers[next];
+        next = next + 1 == numbers.length ? 0 : next + 1;
+        return cell;
+    }
+
+    /**
+     * A copy of the game nothing has been uncovered on, taken again before every call.
+     */
+    @State(Scope.Thread)
+    public static class Fresh {
+        Minesweeper game;
+
+        @Setup(Level.Invocation)
+        public void setUp(EngineBenchmark benchmark) {
+            game = benchmark.game.snapshot();
+        }
+    }
+
+    @Benchmark
+    public MoveResult guess(Fresh fresh) {
+        int cell = nextCell();
+        return fresh.game.makeMove(cell / size, cell % size, MoveAction.GUESS);
+    }
+
+    @Benchmark
+    public MoveResult guessOpening(Fresh fresh) {
+        return fresh.game.makeMove(opening / size, opening % size, MoveAction.GUESS);
+    }
+
+    @Benchmark
+    public Minesweeper snapshot() {
+        return game.snapshot();
+    }
+
+    @Benchmark
+    public MoveResult flag() {
+        int cell = nextCell(); // Every cell is flagged and unflagged in turn, the board stays the same
+        return game.makeMove(cell / size, cell % size, MoveAction.FLAG);
+    }
+
+    @Benchmark
+    public String checkWin() {
+        return game.checkWin();
+    }
+}
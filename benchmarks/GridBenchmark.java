@@ -0,0 +1,54 @@
+package minesweeper;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures repainting the whole grid of buttons, without a window (headless).
+ * A grid of 5000 x 5000 buttons does not fit in memory, so the grid stops at 1000 x 1000.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx8g"})
+public class GridBenchmark {
+    @Param({"5", "100", "1000"})
+    public int size;
+
+    @Param({"0.1", "0.2"})
+    public double density;
+
+    private GameGrid grid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Minesweeper game = new Minesweeper(size, size, BenchmarkBoards.mines(size, density), BenchmarkBoards.SEED);
+        int opening = Solver.findOpening(game.getBoard());
+        if (opening >= 0) {
+            game.makeMove(opening / size, opening % size, MoveAction.GUESS); // Some cells show text
+        }
+        grid = new GameGrid(game, null); // Never clicked, so it needs no window
+    }
+
+    @Benchmark
+    public GameGrid updateAllButtons() {
+        grid.updateAllButtons();
+        return grid;
+    }
+}
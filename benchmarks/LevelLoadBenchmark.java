@@ -0,0 +1,65 @@
+package minesweeper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures how long a new game takes to start: reading a level file
+ * (initializeGame and the LevelFileParser), and generating a board of the same size for comparison.
+ * The level file is written in the format of Levels/emN.txt before the measurements start.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class LevelLoadBenchmark {
+    @Param({"5", "100", "1000", "5000"})
+    public int size;
+
+    @Param({"0.1", "0.2"})
+    public double density;
+
+    private Path levelFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        levelFile = Files.createTempFile("level", ".txt");
+        BenchmarkBoards.writeLevelFile(LevelGenerator.generate(size, size, BenchmarkBoards.mines(size, density),
+            BenchmarkBoards.SEED), levelFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(levelFile);
+    }
+
+    @Benchmark
+    public Minesweeper readLevel() {
+        return new Minesweeper(levelFile.toString());
+    }
+
+    @Benchmark
+    public Minesweeper generateLevel() {
+        return new Minesweeper(size, size, BenchmarkBoards.mines(size, density), BenchmarkBoards.SEED);
+    }
+}
@@ -0,0 +1,95 @@
+package minesweeper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures saving and loading a game with GameFileHandler, which memory maps the save,
+ * and the same save streamed through a buffer with SaveFormat.write and read, to compare the two.
+ * The save files go in the Levels folder like a real save, so the benchmarks have to be run from the
+ * PE7070Code_Crismar folder. The game is half played so the file holds a mix of every state.
+ * 
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SaveLoadBenchmark {
+    @Param({"5", "100", "1000", "5000"})
+    public int size;
+
+    @Param({"0.1", "0.2"})
+    public double density;
+
+    private Minesweeper game;
+    private Minesweeper loaded; // The game the save is loaded into
+    private String level;
+    private Path streamed; // The save written through a buffer
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        game = new Minesweeper(size, size, BenchmarkBoards.mines(size, density), BenchmarkBoards.SEED);
+        level = game.getLevel();
+        int[] numbers = BenchmarkBoards.numberCells(game.getBoard(), game.getBoard().size() / 2);
+        for (int i = 0; i < numbers.length; i += 2) {
+            game.makeMove(numbers[i] / size, numbers[i] % size, i % 4 == 0 ? MoveAction.GUESS : MoveAction.FLAG);
+        }
+        GameFileHandler.saveGame(game); // loadGame needs a file from the start
+        streamed = Paths.get("Levels/" + level + "streamed.bin");
+        saveStreamed();
+        loaded = game.snapshot();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        new File("Levels/" + level + "saved.txt").delete();
+        streamed.toFile().delete();
+    }
+
+    @Benchmark
+    public void saveGame() throws IOException {
+        GameFileHandler.saveGame(game);
+    }
+
+    @Benchmark
+    public int loadGame() throws IOException {
+        return GameFileHandler.loadGame(level, loaded);
+    }
+
+    @Benchmark
+    public long saveStreamed() throws IOException {
+        try (FileChannel channel = FileChannel.open(streamed,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return SaveFormat.write(channel, game);
+        }
+    }
+
+    @Benchmark
+    public int loadStreamed() throws IOException {
+        try (FileChannel channel = FileChannel.open(streamed, StandardOpenOption.READ)) {
+            return SaveFormat.read(channel, loaded);
+        }
+    }
+}
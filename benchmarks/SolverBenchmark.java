@@ -0,0 +1,78 @@
+package minesweeper;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures how fast the Solver works on generated boards.
+ * Every call solves a new copy of the board from its first empty cell, the copy being generated
+ * before the call and outside the timing. Next to the boards solved per second, JMH reports
+ * the cells solved and the decisions made per second; the decisions per board are the decisions
+ * divided by the boards.
+ *
+ * @author Mircea-Rafael Crismar
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SolverBenchmark {
+    @Param({"5", "100", "1000"})
+    public int size;
+
+    @Param({"0.1", "0.2"})
+    public double density;
+
+    private Minesweeper game; // Nothing is uncovered on it when the call starts
+    private int opening; // The first empty cell, or cell 0 if the board has none
+
+    @Setup(Level.Trial)
+    public void findOpening() {
+        Minesweeper first = new Minesweeper(size, size, BenchmarkBoards.mines(size, density), BenchmarkBoards.SEED);
+        opening = Math.max(Solver.findOpening(first.getBoard()), 0);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        game = new Minesweeper(size, size, BenchmarkBoards.mines(size, density), BenchmarkBoards.SEED);
+    }
+
+    /**
+     * The cells solved and the decisions made, reported by JMH per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counts {
+        public long cells;
+        public long decisions;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            cells = 0;
+            decisions = 0;
+        }
+    }
+
+    @Benchmark
+    public Solver.Result solve(Counts counts) {
+        Solver.Result result = new Solver(game).solve(opening / size, opening % size);
+        counts.cells += result.getCellsSolved();
+        counts.decisions += result.getDecisions();
+        return result;
+    }
+}